@@ -7,6 +7,18 @@ repositories {
     mavenCentral()
 }
 
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+val jmhImplementation: Configuration by configurations.getting {
+    extendsFrom(configurations.implementation.get())
+}
+val jmhAnnotationProcessor: Configuration by configurations.getting
+
 dependencies {
     implementation("org.jetbrains:annotations:23.0.0")
 
@@ -18,6 +30,9 @@ dependencies {
     testImplementation("com.fasterxml.jackson.core:jackson-annotations:2.14.0")
     testImplementation("com.fasterxml.jackson.core:jackson-databind:2.14.0")
     testImplementation("nl.jqno.equalsverifier:equalsverifier:2.2.1")
+
+    jmhImplementation("org.openjdk.jmh:jmh-core:1.36")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.36")
 }
 
 tasks {
@@ -27,4 +42,13 @@ tasks {
         archiveFileName.set("membase.jar")
         destinationDirectory.set(file("out"))
     }
+
+    // ./gradlew jmh -PjmhArgs="IndexGetBenchmark -p size=10000"
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Runs the JMH benchmarks, options are passed with -PjmhArgs"
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("net.tridentgames.benchmark.BenchmarkRunner")
+        args = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    }
 }
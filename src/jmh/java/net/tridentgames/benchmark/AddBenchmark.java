@@ -0,0 +1,60 @@
+package net.tridentgames.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fills an empty store with a number of indexes, every thread fills its own store
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AddBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"0", "1", "4"})
+    public int indexes;
+
+    private List<BenchmarkItem> items;
+
+    @Setup
+    public void setUp() {
+        this.items = BenchmarkData.createItems(this.size);
+    }
+
+    @Benchmark
+    public Store<BenchmarkItem> add() {
+        final Store<BenchmarkItem> store = BenchmarkData.index(new MemoryStore<>(), this.indexes);
+
+        for (final BenchmarkItem item : this.items) {
+            store.add(item);
+        }
+
+        return store;
+    }
+
+    @Benchmark
+    public Store<BenchmarkItem> addAll() {
+        final Store<BenchmarkItem> store = BenchmarkData.index(new MemoryStore<>(), this.indexes);
+        store.addAll(this.items);
+
+        return store;
+    }
+}
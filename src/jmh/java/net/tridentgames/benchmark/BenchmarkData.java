@@ -0,0 +1,58 @@
+package net.tridentgames.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.tridentgames.membase.Store;
+
+/**
+ * Deterministic test data, the same size always produces the same items
+ */
+public final class BenchmarkData {
+    public static final int GROUPS = 16;
+    public static final int MAX_INDEXES = 4;
+
+    private BenchmarkData() {}
+
+    public static List<BenchmarkItem> createItems(final int size) {
+        final Random random = new Random(size);
+        final List<BenchmarkItem> items = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            items.add(new BenchmarkItem(i, name(random.nextInt(Math.max(1, size / 4))), random.nextInt(GROUPS), random.nextInt(1000)));
+        }
+
+        return items;
+    }
+
+    /**
+     * Index a store by name, group, score and id, in that order
+     *
+     * @param store   store
+     * @param indexes number of indexes to create
+     * @return the store
+     */
+    public static Store<BenchmarkItem> index(final Store<BenchmarkItem> store, final int indexes) {
+        if (indexes > 0) {
+            store.index("name", BenchmarkItem::getName);
+        }
+
+        if (indexes > 1) {
+            store.index("group", BenchmarkItem::getGroup);
+        }
+
+        if (indexes > 2) {
+            store.index("score", BenchmarkItem::getScore);
+        }
+
+        if (indexes > 3) {
+            store.index("id", BenchmarkItem::getId);
+        }
+
+        return store;
+    }
+
+    public static String name(final int index) {
+        return "name-" + index;
+    }
+}
@@ -0,0 +1,31 @@
+package net.tridentgames.benchmark;
+
+public class BenchmarkItem {
+    private final long id;
+    private final String name;
+    private final int group;
+    private final int score;
+
+    public BenchmarkItem(final long id, final String name, final int group, final int score) {
+        this.id = id;
+        this.name = name;
+        this.group = group;
+        this.score = score;
+    }
+
+    public long getId() {
+        return this.id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public int getGroup() {
+        return this.group;
+    }
+
+    public int getScore() {
+        return this.score;
+    }
+}
@@ -0,0 +1,36 @@
+package net.tridentgames.benchmark;
+
+import java.io.File;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once single-threaded and once with a thread per core, unless a thread count is given with -t.
+ * Results of each run are written to build/jmh/results-{threads}.json unless a result file is given with -rff.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() {}
+
+    public static void main(final String[] args) throws Exception {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final int[] threadCounts = commandLineOptions.getThreads().hasValue()
+            ? new int[]{commandLineOptions.getThreads().get()}
+            : new int[]{1, Runtime.getRuntime().availableProcessors()};
+
+        for (final int threads : threadCounts) {
+            final ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .threads(threads);
+
+            if (!commandLineOptions.getResult().hasValue()) {
+                new File("build/jmh").mkdirs();
+                options.result("build/jmh/results-" + threads + ".json").resultFormat(ResultFormatType.JSON);
+            }
+
+            new Runner(options.build()).run();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package net.tridentgames.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Copies a store with a number of indexes, each thread copies its own store since copying is not thread-safe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CopyBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"0", "1", "4"})
+    public int indexes;
+
+    private Store<BenchmarkItem> store;
+
+    @Setup
+    public void setUp() {
+        this.store = BenchmarkData.index(new MemoryStore<>(BenchmarkData.createItems(this.size)), this.indexes);
+    }
+
+    @Benchmark
+    public Store<BenchmarkItem> copy() {
+        return this.store.copy();
+    }
+}
@@ -0,0 +1,72 @@
+package net.tridentgames.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.index.Index;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Looks up existing and missing keys of a single index, all threads read the same store
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class IndexGetBenchmark {
+    private static final int KEYS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Index<BenchmarkItem> index;
+    private String[] hits;
+    private String[] misses;
+
+    @Setup
+    public void setUp() {
+        final List<BenchmarkItem> items = BenchmarkData.createItems(this.size);
+        final Store<BenchmarkItem> store = new MemoryStore<>(items);
+        this.index = store.index("name", BenchmarkItem::getName);
+        this.hits = new String[KEYS];
+        this.misses = new String[KEYS];
+
+        for (int i = 0; i < KEYS; i++) {
+            this.hits[i] = items.get(i % items.size()).getName();
+            this.misses[i] = "missing-" + i;
+        }
+    }
+
+    @Benchmark
+    public List<BenchmarkItem> hit(final Cursor cursor) {
+        return this.index.get(this.hits[cursor.next()]);
+    }
+
+    @Benchmark
+    public List<BenchmarkItem> miss(final Cursor cursor) {
+        return this.index.get(this.misses[cursor.next()]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next() {
+            this.position = (this.position + 1) & (KEYS - 1);
+            return this.position;
+        }
+    }
+}
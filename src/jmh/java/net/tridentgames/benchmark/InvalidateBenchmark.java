@@ -0,0 +1,62 @@
+package net.tridentgames.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.policy.type.TimedExpiringPolicy;
+import net.tridentgames.membase.type.expiring.ExpiringMemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a single expiration sweep over a store where either every item or no item has expired. Background sweeps are
+ * disabled so only the measured sweep removes items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class InvalidateBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean expired;
+
+    private ExpiringMemoryStore<BenchmarkItem> store;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws InterruptedException {
+        this.store = new ExpiringMemoryStore<>();
+        this.store.index("name", BenchmarkItem::getName);
+        this.store.addPolicy(TimedExpiringPolicy.of(this.expired ? TimeUnit.MILLISECONDS : TimeUnit.HOURS, 1, false));
+        this.store.close();
+        this.store.addAll(BenchmarkData.createItems(this.size));
+
+        if (this.expired) {
+            Thread.sleep(100); // let every item come due
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        this.store.close();
+    }
+
+    @Benchmark
+    public int invalidate() {
+        this.store.invalidate();
+        return this.store.size();
+    }
+}
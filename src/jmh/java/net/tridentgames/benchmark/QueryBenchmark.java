@@ -0,0 +1,85 @@
+package net.tridentgames.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.query.Query;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs multi-part AND and OR queries over name, group and score, all threads read the same store
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class QueryBenchmark {
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Store<BenchmarkItem> store;
+    private Query[] andQueries;
+    private Query[] orQueries;
+
+    @Setup
+    public void setUp() {
+        final List<BenchmarkItem> items = BenchmarkData.createItems(this.size);
+        final Random random = new Random(this.size);
+
+        this.store = BenchmarkData.index(new MemoryStore<>(items), 3);
+        this.andQueries = new Query[QUERIES];
+        this.orQueries = new Query[QUERIES];
+
+        for (int i = 0; i < QUERIES; i++) {
+            final BenchmarkItem item = items.get(random.nextInt(items.size()));
+            final String otherName = items.get(random.nextInt(items.size())).getName();
+
+            this.andQueries[i] = Query.advancedQuery().and(
+                query -> query.where("group", item.getGroup()),
+                query -> query.where("score", item.getScore()),
+                query -> query.where("name", item.getName())
+            );
+            this.orQueries[i] = Query.advancedQuery().or(
+                query -> query.where("name", item.getName()),
+                query -> query.where("name", otherName),
+                query -> query.where("score", item.getScore())
+            );
+        }
+    }
+
+    @Benchmark
+    public List<BenchmarkItem> and(final Cursor cursor) {
+        return this.store.get(this.andQueries[cursor.next()]);
+    }
+
+    @Benchmark
+    public List<BenchmarkItem> or(final Cursor cursor) {
+        return this.store.get(this.orQueries[cursor.next()]);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next() {
+            this.position = (this.position + 1) & (QUERIES - 1);
+            return this.position;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package net.tridentgames.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.index.Index;
+import net.tridentgames.membase.index.reducer.LimitReducer;
+import net.tridentgames.membase.index.reducer.MaxReducer;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Churns items through reduced indexes with only {@link BenchmarkData#GROUPS} keys, so every key holds many items.
+ * Every thread churns its own store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReducerBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private List<BenchmarkItem> items;
+    private Store<BenchmarkItem> store;
+    private Index<BenchmarkItem> highestScore;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        this.items = BenchmarkData.createItems(this.size);
+        this.store = new MemoryStore<>(this.items);
+        this.highestScore = this.store.index("highestScore", BenchmarkItem::getGroup, new MaxReducer<>(BenchmarkItem::getScore, false));
+        this.store.index("latest", BenchmarkItem::getGroup, new LimitReducer<>(10, LimitReducer.Retain.NEWEST));
+    }
+
+    @Benchmark
+    public boolean churn() {
+        final BenchmarkItem item = this.items.get(this.position);
+        this.position = (this.position + 1) % this.items.size();
+
+        this.store.remove(item);
+        return this.store.add(item);
+    }
+
+    @Benchmark
+    public List<BenchmarkItem> get() {
+        this.position = (this.position + 1) % BenchmarkData.GROUPS;
+        return this.highestScore.get(this.position);
+    }
+}
@@ -0,0 +1,54 @@
+package net.tridentgames.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.query.Query;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Removes one of {@link BenchmarkData#GROUPS} groups with a query. Each shot gets a fresh copy of the store, the copy
+ * is not measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+public class RemoveBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private Store<BenchmarkItem> template;
+    private Store<BenchmarkItem> store;
+    private int group;
+
+    @Setup
+    public void setUp() {
+        this.template = BenchmarkData.index(new MemoryStore<>(BenchmarkData.createItems(this.size)), BenchmarkData.MAX_INDEXES);
+    }
+
+    @Setup(Level.Iteration)
+    public void copy() {
+        this.store = this.template.copy();
+        this.group = (this.group + 1) % BenchmarkData.GROUPS;
+    }
+
+    @Benchmark
+    public List<BenchmarkItem> remove() {
+        return this.store.remove(Query.simpleQuery().where("group", this.group));
+    }
+}
@@ -5,60 +5,93 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import net.tridentgames.membase.index.Index;
 import net.tridentgames.membase.index.IndexDefinition;
 import net.tridentgames.membase.index.IndexException;
 import net.tridentgames.membase.index.IndexManager;
 import net.tridentgames.membase.query.Query;
-import net.tridentgames.membase.query.section.Section;
-import net.tridentgames.membase.query.section.SectionOperator;
-import net.tridentgames.membase.query.section.SectionPart;
+import net.tridentgames.membase.query.planner.QueryPlanner;
 import net.tridentgames.membase.reference.Reference;
 import net.tridentgames.membase.reference.ReferenceManager;
+import net.tridentgames.membase.type.concurrent.ConcurrentStore;
+import net.tridentgames.membase.type.concurrent.LeftRightStore;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public abstract class AbstractStore<V> extends AbstractCollection<V> implements Store<V> {
     protected final ReferenceManager<V> referenceManager;
     protected final IndexManager<V> indexManager;
+    protected final QueryPlanner<V> queryPlanner;
 
     protected AbstractStore(final ReferenceManager<V> referenceManager, final IndexManager<V> indexManager) {
         this.referenceManager = referenceManager;
         this.indexManager = indexManager;
+        this.queryPlanner = new QueryPlanner<>(referenceManager, indexManager);
     }
 
     @Override
     public List<V> get(final Query query, @Nullable final Integer limit) {
-        final Set<Reference<V>> results = new LinkedHashSet<>();
-
-        for (final Section section : query.getSections()) {
-            boolean firstMatch = true;
-
-            for (final SectionPart part : section.getParts()) {
-                final Set<Reference<V>> references = Optional.ofNullable(this.indexManager.getIndex(part.getKey()))
-                    .map(index -> index.getReferences(part.getValue()))
-                    .orElse(Collections.emptySet());
-
-                if (firstMatch || section.getOperator() == SectionOperator.OR) {
-                    results.addAll(references);
-                    firstMatch = false;
-                } else {
-                    results.retainAll(references);
-                }
+        final List<V> results = new ArrayList<>();
+        this.get(query, limit, results);
+        return results;
+    }
+
+    @Override
+    public int get(final Query query, @Nullable final Integer limit, final Collection<? super V> results) {
+        return this.queryPlanner.execute(query, limit, item -> {
+            this.access(item);
+            results.add(item);
+        });
+    }
+
+    @Override
+    public int count(final Query query) {
+        return this.queryPlanner.count(query);
+    }
+
+    @Override
+    public boolean exists(final Query query) {
+        return this.queryPlanner.iterator(query, 1).hasNext();
+    }
+
+    /**
+     * Stream matching values, looking each one up only once the stream reaches it
+     */
+    @Override
+    public Stream<V> stream(final Query query, @Nullable final Integer limit) {
+        final Iterator<Reference<V>> references = this.queryPlanner.iterator(query, limit);
+        final Iterator<V> iterator = new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+                return references.hasNext();
             }
-        }
 
-        return results.stream()
-            .map(Reference::get)
-            .limit(Objects.isNull(limit) ? Long.MAX_VALUE : limit)
-            .collect(Collectors.toList());
+            @Override
+            public V next() {
+                final V item = references.next().get();
+                AbstractStore.this.access(item);
+                return item;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Called for every value returned by a query
+     *
+     * @param item returned value
+     */
+    protected void access(final V item) {
     }
 
     @Override
@@ -130,6 +163,40 @@ public abstract class AbstractStore<V> extends AbstractCollection<V> implements
         this.indexManager.reindex(references);
     }
 
+    @Override
+    public void flushReindex() {
+        this.indexManager.flush();
+    }
+
+    public boolean isDeferReindex() {
+        return this.indexManager.isDeferReindex();
+    }
+
+    /**
+     * Set whether reindexing items only marks them dirty. Each index reindexes its dirty items right before it is next
+     * read, so updates to items that are never queried cost no index maintenance, and an item reindexed several times
+     * is reindexed once. {@link #flushReindex()} reindexes all dirty items, e.g. from a background task. As reads may
+     * reindex, a deferring store must not be read concurrently: {@link ConcurrentStore} and {@link LeftRightStore}
+     * refuse to wrap it, and deferral must not be turned on once the store is wrapped. {@link #synchronizedStore()}
+     * serializes reads and can wrap it.
+     *
+     * @param deferReindex true to defer reindexing, false to flush dirty items and reindex right away again
+     */
+    public void setDeferReindex(final boolean deferReindex) {
+        this.indexManager.setDeferReindex(deferReindex);
+    }
+
+    /**
+     * Whether {@link #contains(Object)} may be called concurrently with writes, which lets thread-safe wrappers such as
+     * {@link ConcurrentStore} answer it without locking. True if the store was created with a
+     * {@link ReferenceManager#isConcurrent() concurrent} reference manager.
+     *
+     * @return true if contains is thread-safe
+     */
+    public boolean isConcurrentContains() {
+        return this.referenceManager.isConcurrent();
+    }
+
     @Override
     public int size() {
         return this.referenceManager.size();
@@ -150,10 +217,14 @@ public abstract class AbstractStore<V> extends AbstractCollection<V> implements
         return new StoreIterator(this.referenceManager.getReferences().iterator());
     }
 
+    /**
+     * Add items to the store. Items not yet stored are bulk loaded into every index, items already stored are
+     * reindexed.
+     */
     @Override
     public boolean addAll(final Collection<? extends V> collection) {
+        final List<Reference<V>> newReferences = new ArrayList<>(collection.size());
         final List<Reference<V>> references = new ArrayList<>();
-        boolean changed = false;
 
         for (final V item : collection) {
             final Optional<Reference<V>> existingReference = this.referenceManager.findReference(item);
@@ -163,12 +234,15 @@ public abstract class AbstractStore<V> extends AbstractCollection<V> implements
                 continue;
             }
 
-            references.add(this.referenceManager.add(item));
-            changed = true;
+            final Reference<V> reference = this.referenceManager.add(item);
+
+            if (reference != null) {
+                newReferences.add(reference);
+            }
         }
 
-        this.indexManager.reindex(references);
-        return changed;
+        this.indexManager.load(newReferences, references);
+        return !newReferences.isEmpty();
     }
 
     @Override
@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import net.tridentgames.membase.index.Index;
 import net.tridentgames.membase.index.IndexDefinition;
@@ -18,6 +19,8 @@ import net.tridentgames.membase.index.reducer.Reducer;
 import net.tridentgames.membase.listener.RemovalListener;
 import net.tridentgames.membase.listener.enums.RemovalType;
 import net.tridentgames.membase.query.Query;
+import net.tridentgames.membase.type.concurrent.ConcurrentStore;
+import net.tridentgames.membase.type.concurrent.LeftRightStore;
 import net.tridentgames.membase.type.concurrent.SynchronizedStore;
 import net.tridentgames.membase.type.immutable.ImmutableStore;
 import org.jetbrains.annotations.NotNull;
@@ -119,6 +122,43 @@ public interface Store<V> extends Collection<V> {
 
     List<V> remove(@NotNull Query query);
 
+    /**
+     * Query indexes and stream all matching values. Stores that can resolve matches lazily only look up each value
+     * once the stream reaches it, so walking a large match runs in constant memory. The store must not be modified
+     * until the stream is closed or exhausted. By default the matching values are collected first.
+     *
+     * @param query query to execute
+     * @param limit limit results to the first x number of items
+     * @return stream of matching values
+     */
+    default Stream<V> stream(final Query query, @Nullable final Integer limit) {
+        return this.get(query, limit).stream();
+    }
+
+    /**
+     * Query indexes and stream all matching values, see {@link #stream(Query, Integer)}
+     *
+     * @param query query to execute
+     * @return stream of matching values
+     */
+    default Stream<V> stream(final Query query) {
+        return this.stream(query, null);
+    }
+
+    /**
+     * Query indexes and add all matching values to a collection, which can be reused between queries.
+     *
+     * @param query   query to execute
+     * @param limit   limit results to the first x number of items
+     * @param results collection to add matching values to
+     * @return number of matching values added
+     */
+    default int get(final Query query, @Nullable final Integer limit, final Collection<? super V> results) {
+        final List<V> items = this.get(query, limit);
+        results.addAll(items);
+        return items.size();
+    }
+
     /**
      * Query indexes and look up all  matching value.
      *
@@ -150,6 +190,27 @@ public interface Store<V> extends Collection<V> {
         return Optional.ofNullable(this.getFirst(query));
     }
 
+    /**
+     * Count values matching the query. Stores answer from their indexes where possible, without looking up the values.
+     *
+     * @param query query to execute
+     * @return number of matching values
+     */
+    default int count(final Query query) {
+        return this.get(query).size();
+    }
+
+    /**
+     * Check if any value matches the query. Stores answer from their indexes where possible, without looking up the
+     * values.
+     *
+     * @param query query to execute
+     * @return true if a value matches
+     */
+    default boolean exists(final Query query) {
+        return !this.get(query, 1).isEmpty();
+    }
+
     /**
      * Find index with name. This is the same as {@link Store#findIndex(String)}, but returns a null instead of an optional if an index cannot be found.
      *
@@ -226,6 +287,15 @@ public interface Store<V> extends Collection<V> {
      */
     void reindex(final V item) throws IndexException;
 
+    /**
+     * Reindex items whose reindex was deferred, see {@link AbstractStore#setDeferReindex(boolean)}. Stores that never
+     * defer reindexing have nothing to flush.
+     *
+     * @throws IndexException thrown if one or more indexes failed with exceptions.
+     */
+    default void flushReindex() throws IndexException {
+    }
+
     /**
      * Adds an item to the store and indexes it. If the item already exists in the store,
      * it will be reindexed.
@@ -261,10 +331,11 @@ public interface Store<V> extends Collection<V> {
     }
 
     /**
-     * Create a copy of this store. This can be an expensive operation depending
-     * on the number of items and indexes present. The copied store will be fully
+     * Create a copy of this store. The copied store will be fully
      * independent from this store. Any changes made to the copy will not reflect back
-     * onto this store.
+     * onto this store. Memory stores share their references and indexes with the copy
+     * until either store modifies them, so copying is cheap and only what the stores
+     * diverge on is duplicated.
      *
      * @return copy
      */
@@ -323,4 +394,37 @@ public interface Store<V> extends Collection<V> {
     default Store<V> synchronizedStore() {
         return new SynchronizedStore<>(this);
     }
+
+    /**
+     * Returns a thread-safe Store backed by this store, guarded by a read/write lock.
+     * Queries, index lookups and other reads run in parallel and only wait for writes,
+     * which makes this store preferable to {@link #synchronizedStore()} for read-heavy use.
+     * In order to guarantee safe access, it is critical that <strong>all</strong> access to
+     * the backing store is accomplished through the returned store. Any references held to
+     * {@link Index}es should be discarded. Call {@link Store#getIndex(String)} on the
+     * concurrent store to obtain thread-safe indexes.
+     *
+     * Iterating the returned store walks a snapshot of its items, no manual locking is required.
+     *
+     * @return concurrent store
+     */
+    default Store<V> concurrentStore() {
+        return new ConcurrentStore<>(this);
+    }
+
+    /**
+     * Returns a thread-safe Store backed by this store whose reads never lock or wait.
+     * Each query runs against one consistent version of every index, even while writes
+     * are in progress. Writes are serialized and applied to two copies of the store's
+     * indexes, so they cost roughly twice as much as on this store.
+     * As with {@link #concurrentStore()}, <strong>all</strong> access must go through the
+     * returned store and indexes should be obtained from it.
+     *
+     * Iterating the returned store walks a snapshot of its items, no manual locking is required.
+     *
+     * @return left-right store
+     */
+    default Store<V> leftRightStore() {
+        return new LeftRightStore<>(this);
+    }
 }
@@ -0,0 +1,207 @@
+package net.tridentgames.membase.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import net.tridentgames.membase.index.primitive.DenseIntMap;
+import net.tridentgames.membase.index.primitive.RoaringBitmap;
+import net.tridentgames.membase.query.enums.IndexOperator;
+import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Index maintained by an {@link IndexManager} against references to stored items
+ *
+ * @param <V> value type
+ */
+public abstract class AbstractIndex<V> implements Index<V> {
+    private final Set<Reference<V>> dirtyReferences = new LinkedHashSet<>();
+
+    /**
+     * Get all references matching the key using the given operator
+     *
+     * @param operator operator to match keys with
+     * @param key      indexed key, fragment or lower bound to lookup
+     * @param upperKey upper bound of a {@link IndexOperator#BETWEEN} lookup
+     * @return matching references
+     */
+    public abstract @NotNull Set<Reference<V>> getReferences(IndexOperator operator, Object key, @Nullable Object upperKey);
+
+    /**
+     * Get the ids of all references matching the key using the given operator, see {@link Reference#getId()}. The
+     * returned bitmap may be held by the index and must not be modified.
+     *
+     * @param operator operator to match keys with
+     * @param key      indexed key, fragment or lower bound to lookup
+     * @param upperKey upper bound of a {@link IndexOperator#BETWEEN} lookup
+     * @return matching ids, or null if the index cannot provide them and references must be used instead
+     */
+    public @Nullable RoaringBitmap getIds(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        return null;
+    }
+
+    /**
+     * Index a new reference or update the keys of an indexed one
+     *
+     * @param reference reference to index
+     * @throws IndexCreationException if the keys of the referenced item cannot be generated
+     */
+    public abstract void index(Reference<V> reference) throws IndexCreationException;
+
+    /**
+     * Index references that are not indexed yet. Unlike {@link #index(Reference)} no stale keys are removed first,
+     * which indexes override to build their posting lists in a single pass.
+     *
+     * @param references references new to this index
+     * @param exceptions collects the exceptions of references that could not be indexed
+     */
+    void load(final Collection<Reference<V>> references, final List<IndexCreationException> exceptions) {
+        for (final Reference<V> reference : references) {
+            try {
+                this.index(reference);
+            } catch (final IndexCreationException e) {
+                exceptions.add(e);
+            }
+        }
+    }
+
+    /**
+     * Map the keys of a reference without modifying the index, see {@link #index(List, Object[], boolean, List)}. May
+     * be called from several threads at once.
+     *
+     * @param reference reference to map the keys of
+     * @return mapped keys, or null if the index maps keys while indexing
+     * @throws IndexCreationException if the keys of the referenced item cannot be generated
+     */
+    @Nullable Object mapKeys(final Reference<V> reference) throws IndexCreationException {
+        return null;
+    }
+
+    /**
+     * Index references with the keys mapped for them by {@link #mapKeys(Reference)}. References without keys, whose
+     * mapping failed, are skipped.
+     *
+     * @param references references to index
+     * @param keys       keys mapped for the reference at the same position
+     * @param load       true if the references are new to this index, see {@link #load(Collection, List)}
+     * @param exceptions collects the exceptions of references that could not be indexed
+     */
+    void index(final List<Reference<V>> references, final Object[] keys, final boolean load, final List<IndexCreationException> exceptions) {
+        if (load) {
+            this.load(references, exceptions);
+            return;
+        }
+
+        for (final Reference<V> reference : references) {
+            try {
+                this.index(reference);
+            } catch (final IndexCreationException e) {
+                exceptions.add(e);
+            }
+        }
+    }
+
+    /**
+     * Defer reindexing a reference until this index is next read, see {@link #flush()}. Marking a reference that is
+     * already dirty has no effect.
+     *
+     * @param reference reference to reindex
+     */
+    void markDirty(final Reference<V> reference) {
+        this.dirtyReferences.add(reference);
+    }
+
+    /**
+     * Forget the deferred reindex of a removed reference
+     *
+     * @param reference removed reference
+     */
+    void clearDirty(final Reference<V> reference) {
+        this.dirtyReferences.remove(reference);
+    }
+
+    /**
+     * Forget all deferred reindexes
+     */
+    void clearDirty() {
+        this.dirtyReferences.clear();
+    }
+
+    /**
+     * Reindex the references whose reindex was deferred. Called before every read of the index, so deferred
+     * reindexes are never observed.
+     *
+     * @throws IndexException if the keys of some of the references could not be generated
+     */
+    protected void flush() throws IndexException {
+        if (this.dirtyReferences.isEmpty()) {
+            return;
+        }
+
+        final List<IndexCreationException> exceptions = new ArrayList<>();
+
+        this.flush(exceptions);
+        IndexManager.throwExceptions(exceptions);
+    }
+
+    /**
+     * Reindex the references whose reindex was deferred
+     *
+     * @param exceptions collects the exceptions of references that could not be indexed
+     */
+    void flush(final List<IndexCreationException> exceptions) {
+        final List<Reference<V>> references = new ArrayList<>(this.dirtyReferences);
+
+        this.dirtyReferences.clear();
+
+        for (final Reference<V> reference : references) {
+            try {
+                this.index(reference);
+            } catch (final IndexCreationException e) {
+                exceptions.add(e);
+            }
+        }
+    }
+
+    /**
+     * Copy the deferred reindexes of this index to its copy
+     *
+     * @param copy copy of this index
+     */
+    void copyDirty(final AbstractIndex<V> copy) {
+        copy.dirtyReferences.addAll(this.dirtyReferences);
+    }
+
+    /**
+     * Create a resolver of reference ids to the references held by an index. Every call creates a distinct resolver,
+     * which identifies the {@link References} owned by the index using it, see {@link References#isOwnedBy(IntFunction)}.
+     *
+     * @param referenceMap reference ids to indexed references
+     * @return resolver
+     */
+    static <V> @NotNull IntFunction<Reference<V>> createResolver(final DenseIntMap<Reference<V>> referenceMap) {
+        return new IntFunction<Reference<V>>() {
+            @Override
+            public Reference<V> apply(final int id) {
+                return referenceMap.get(id);
+            }
+        };
+    }
+
+    public abstract void removeIndex(Reference<V> reference);
+
+    public abstract void clear();
+
+    /**
+     * Create a copy of this index. Copies share their keys and references until either index modifies them, so
+     * copying takes constant time and only the keys the copies diverge on are duplicated.
+     *
+     * @return copy
+     */
+    public abstract @NotNull AbstractIndex<V> copy();
+}
@@ -0,0 +1,234 @@
+package net.tridentgames.membase.index;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+public class ConcurrentIndex<T> implements Index<T> {
+    private final Index<T> index;
+    private final ReadWriteLock lock;
+    private final Lock readLock;
+
+    public ConcurrentIndex(final Index<T> index, final ReadWriteLock lock) {
+        this.index = index;
+        this.lock = lock;
+        this.readLock = lock.readLock();
+    }
+
+    @Override
+    public @Nullable T getFirst(final Object key) {
+        final T result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.index.getFirst(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public @NotNull Optional<T> findFirst(final Object key) {
+        final Optional<T> result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.index.findFirst(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public @NotNull Optional<T> findFirstInt(final int key) {
+        final Optional<T> result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.index.findFirstInt(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public @NotNull Optional<T> findFirstLong(final long key) {
+        final Optional<T> result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.index.findFirstLong(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<T> get(final Object key) {
+        final List<T> results;
+
+        this.readLock.lock();
+
+        try {
+            results = this.index.get(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<T> getInt(final int key) {
+        final List<T> results;
+
+        this.readLock.lock();
+
+        try {
+            results = this.index.getInt(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<T> getLong(final long key) {
+        final List<T> results;
+
+        this.readLock.lock();
+
+        try {
+            results = this.index.getLong(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return results;
+    }
+
+    @Override
+    public int get(final Object key, final Collection<? super T> results) {
+        final int count;
+
+        this.readLock.lock();
+
+        try {
+            count = this.index.get(key, results);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return count;
+    }
+
+    @Override
+    public void forEach(final Object key, final Consumer<? super T> action) {
+        this.readLock.lock();
+
+        try {
+            this.index.forEach(key, action);
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
+    @Override
+    public int count(final Object key) {
+        final int count;
+
+        this.readLock.lock();
+
+        try {
+            count = this.index.count(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean contains(final Object key) {
+        final boolean result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.index.contains(key);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public @NotNull @Unmodifiable Set<Object> keys() {
+        final Set<Object> keys;
+
+        this.readLock.lock();
+
+        try {
+            keys = this.index.keys();
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return keys;
+    }
+
+    @Override
+    public String getName() {
+        return this.index.getName();
+    }
+
+    public Index<T> getIndex() {
+        return this.index;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        if (this == other) {
+            return true;
+        }
+
+        if (Objects.isNull(other) || this.getClass() != other.getClass()) {
+            return false;
+        }
+
+        final ConcurrentIndex<?> that = (ConcurrentIndex<?>) other;
+        return Objects.equals(this.index, that.index) && Objects.equals(this.lock, that.lock);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.index, this.lock);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(this.index);
+    }
+}
@@ -1,9 +1,13 @@
 package net.tridentgames.membase.index;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 
 /**
  * Index applied to a {@link net.tridentgames.membase.Store}
@@ -29,6 +33,28 @@ public interface Index<V> {
      */
     @NotNull Optional<V> findFirst(final Object key);
 
+    /**
+     * Find first indexed item matching an int key. Indexes created from an {@link IntIndexDefinition} or a
+     * {@link LongIndexDefinition} look the key up without boxing it, other indexes look up an {@link Integer}.
+     *
+     * @param key indexed key to lookup
+     * @return optional
+     */
+    default @NotNull Optional<V> findFirstInt(final int key) {
+        return this.findFirst((Object) key);
+    }
+
+    /**
+     * Find first indexed item matching a long key. Indexes created from an {@link IntIndexDefinition} or a
+     * {@link LongIndexDefinition} look the key up without boxing it, other indexes look up a {@link Long}.
+     *
+     * @param key indexed key to lookup
+     * @return optional
+     */
+    default @NotNull Optional<V> findFirstLong(final long key) {
+        return this.findFirst((Object) key);
+    }
+
     /**
      * Find all indexed items matching key
      *
@@ -37,6 +63,79 @@ public interface Index<V> {
      */
     List<V> get(final Object key);
 
+    /**
+     * Find all indexed items matching an int key. Indexes created from an {@link IntIndexDefinition} or a
+     * {@link LongIndexDefinition} look the key up without boxing it, other indexes look up an {@link Integer}.
+     *
+     * @param key indexed key to lookup
+     * @return matching items
+     */
+    default List<V> getInt(final int key) {
+        return this.get((Object) key);
+    }
+
+    /**
+     * Find all indexed items matching a long key. Indexes created from an {@link IntIndexDefinition} or a
+     * {@link LongIndexDefinition} look the key up without boxing it, other indexes look up a {@link Long}.
+     *
+     * @param key indexed key to lookup
+     * @return matching items
+     */
+    default List<V> getLong(final long key) {
+        return this.get((Object) key);
+    }
+
+    /**
+     * Add all indexed items matching key to a collection, which can be reused between lookups
+     *
+     * @param key     indexed key to lookup
+     * @param results collection to add matching items to
+     * @return number of matching items
+     */
+    default int get(final Object key, final Collection<? super V> results) {
+        final List<V> items = this.get(key);
+        results.addAll(items);
+        return items.size();
+    }
+
+    /**
+     * Perform an action for each indexed item matching key, without collecting the items
+     *
+     * @param key    indexed key to lookup
+     * @param action action to perform
+     */
+    default void forEach(final Object key, final Consumer<? super V> action) {
+        this.get(key).forEach(action);
+    }
+
+    /**
+     * Count indexed items matching key
+     *
+     * @param key indexed key to lookup
+     * @return number of matching items
+     */
+    default int count(final Object key) {
+        return this.get(key).size();
+    }
+
+    /**
+     * Check if any indexed item matches key
+     *
+     * @param key indexed key to lookup
+     * @return true if an item matches
+     */
+    default boolean contains(final Object key) {
+        return this.getFirst(key) != null;
+    }
+
+    /**
+     * Get a snapshot of all keys matched by at least one item, in the form the index compares them in. Together with
+     * {@link #count(Object)} this tallies the items per key without looking them up.
+     *
+     * @return indexed keys
+     */
+    @NotNull @Unmodifiable Set<Object> keys();
+
     /**
      * Get name of index
      *
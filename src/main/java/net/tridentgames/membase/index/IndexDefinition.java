@@ -2,6 +2,7 @@ package net.tridentgames.membase.index;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 
 import java.util.Objects;
 import net.tridentgames.membase.index.comparison.ComparisonPolicy;
@@ -15,15 +16,21 @@ import org.jetbrains.annotations.NotNull;
  * @param <K> key type
  * @param <V> value type
  */
-public final class IndexDefinition<K, V> {
+public class IndexDefinition<K, V> {
     private final KeyMapper<Collection<K>, V> keyMapper;
     private ComparisonPolicy<K> comparisonPolicy;
     private Reducer<K, V> reducer;
+    private int gramSize;
+    private boolean sorted;
+    private Comparator<? super K> keyComparator;
 
-    private IndexDefinition(final KeyMapper<Collection<K>, V> keyMapper) {
+    IndexDefinition(final KeyMapper<Collection<K>, V> keyMapper) {
         this.keyMapper = keyMapper;
         this.comparisonPolicy = new DefaultComparisonPolicy<>();
         this.reducer = null;
+        this.gramSize = 0;
+        this.sorted = false;
+        this.keyComparator = null;
     }
 
     /**
@@ -50,6 +57,57 @@ public final class IndexDefinition<K, V> {
         return this;
     }
 
+    /**
+     * Keep indexed keys sorted by their natural order, so range queries such as
+     * {@link net.tridentgames.membase.query.enums.IndexOperator#BETWEEN} walk a sub map instead of comparing every key.
+     * Keys must be {@link Comparable} after the comparison policy has been applied.
+     *
+     * @return index build
+     */
+    public IndexDefinition<K, V> withSorting() {
+        return this.withSorting(null);
+    }
+
+    /**
+     * Keep indexed keys sorted using the given comparator, so range queries such as
+     * {@link net.tridentgames.membase.query.enums.IndexOperator#BETWEEN} walk a sub map instead of comparing every key.
+     *
+     * @param keyComparator comparator used to order keys, or null for their natural order
+     * @return index build
+     */
+    public IndexDefinition<K, V> withSorting(final Comparator<? super K> keyComparator) {
+        this.sorted = true;
+        this.keyComparator = keyComparator;
+        return this;
+    }
+
+    /**
+     * Maintain a trigram index over String keys, so {@link net.tridentgames.membase.query.enums.IndexOperator#CONTAINS}
+     * queries match keys containing the searched value as a substring without scanning the store.
+     *
+     * @return index build
+     */
+    public IndexDefinition<K, V> withSubstringIndex() {
+        return this.withSubstringIndex(3);
+    }
+
+    /**
+     * Maintain an n-gram index over String keys, so {@link net.tridentgames.membase.query.enums.IndexOperator#CONTAINS}
+     * queries match keys containing the searched value as a substring without scanning the store. Shorter grams
+     * support shorter search terms at the cost of larger posting lists.
+     *
+     * @param gramSize number of characters per gram
+     * @return index build
+     */
+    public IndexDefinition<K, V> withSubstringIndex(final int gramSize) {
+        if (gramSize < 1) {
+            throw new IllegalArgumentException("Gram size must be at least 1");
+        }
+
+        this.gramSize = gramSize;
+        return this;
+    }
+
     /**
      * Specify a function that maps a given value to a single indexed key. For example, we can index a Person object by
      * its firstName field. Example: IndexDefinition.withKeyMapping(Person::getFirstName) <br><br>
@@ -81,6 +139,10 @@ public final class IndexDefinition<K, V> {
         return new IndexDefinition<>(mapper);
     }
 
+    @NotNull AbstractIndex<V> createIndex(final String indexName) {
+        return new ReferenceIndex<>(indexName, this);
+    }
+
     KeyMapper<Collection<K>, V> getKeyMapper() {
         return this.keyMapper;
     }
@@ -92,4 +154,16 @@ public final class IndexDefinition<K, V> {
     Reducer<K, V> getReducer() {
         return this.reducer;
     }
+
+    int getGramSize() {
+        return this.gramSize;
+    }
+
+    boolean isSorted() {
+        return this.sorted;
+    }
+
+    Comparator<? super K> getKeyComparator() {
+        return this.keyComparator;
+    }
 }
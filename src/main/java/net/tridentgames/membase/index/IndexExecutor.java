@@ -0,0 +1,72 @@
+package net.tridentgames.membase.index;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs the parallel indexing of an {@link IndexManager}. The keys of a large batch are mapped by several partitions at
+ * once, after which every index builds its posting lists on a single thread of its own, so no index is ever modified
+ * by two threads. Batches smaller than the threshold are indexed on the calling thread.
+ */
+public class IndexExecutor {
+    public static final int DEFAULT_THRESHOLD = 10_000;
+
+    private final Executor executor;
+    private final int parallelism;
+    private final int threshold;
+
+    /**
+     * @param executor    executor running the partitions
+     * @param parallelism number of partitions keys are mapped in
+     * @param threshold   minimum number of references indexed in parallel
+     */
+    public IndexExecutor(@NotNull Executor executor, int parallelism, int threshold) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Create an executor indexing on its own fork-join pool of daemon threads
+     *
+     * @param threads number of threads
+     * @return executor
+     */
+    public static @NotNull IndexExecutor create(final int threads) {
+        final ForkJoinPool pool = new ForkJoinPool(threads, forkJoinPool -> {
+            final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("membase-index-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+
+        return new IndexExecutor(pool, threads, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Create an executor indexing on the common fork-join pool
+     *
+     * @return executor
+     */
+    public static @NotNull IndexExecutor common() {
+        return new IndexExecutor(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism(), DEFAULT_THRESHOLD);
+    }
+
+    public @NotNull Executor getExecutor() {
+        return this.executor;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public int getThreshold() {
+        return this.threshold;
+    }
+}
@@ -6,36 +6,115 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class IndexManager<V> {
-    private final Map<String, ReferenceIndex<?, V>> indexMap;
+    private final Map<String, AbstractIndex<V>> indexMap;
+    private final @Nullable IndexExecutor indexExecutor;
+    private boolean deferReindex;
 
-    public IndexManager(final Collection<ReferenceIndex<?, V>> indexes) {
+    public IndexManager(final Collection<AbstractIndex<V>> indexes, @Nullable final IndexExecutor indexExecutor) {
         this.indexMap = new HashMap<>();
+        this.indexExecutor = indexExecutor;
         indexes.forEach(index -> this.indexMap.put(index.getName(), index));
     }
 
-    public <K> ReferenceIndex<K, V> createIndex(String indexName, IndexDefinition<K, V> indexDefinition, Collection<Reference<V>> references) {
+    public IndexManager(final Collection<AbstractIndex<V>> indexes) {
+        this(indexes, null);
+    }
+
+    public <K> AbstractIndex<V> createIndex(String indexName, IndexDefinition<K, V> indexDefinition, Collection<Reference<V>> references) {
         if (this.indexMap.containsKey(indexName)) {
             throw new IllegalArgumentException("An index already exists with this name");
         }
 
-        final ReferenceIndex<K, V> newIndex = this.createIndex(indexName, indexDefinition);
+        final AbstractIndex<V> newIndex = this.createIndex(indexName, indexDefinition);
+        final List<IndexCreationException> exceptions = new ArrayList<>();
+
         this.indexMap.put(indexName, newIndex);
-        indexReferences(Collections.singleton(newIndex), references);
+
+        if (this.isParallel(references)) {
+            this.indexParallel(Collections.singletonList(newIndex), references, true, exceptions);
+        } else {
+            newIndex.load(references, exceptions);
+        }
+
+        throwExceptions(exceptions);
         return newIndex;
     }
 
-    public ReferenceIndex<?, V> getIndex(final String indexName) {
+    public AbstractIndex<V> getIndex(final String indexName) {
         return this.indexMap.get(indexName);
     }
 
     public void reindex(final Collection<Reference<V>> references) {
-        indexReferences(this.indexMap.values(), references);
+        final List<IndexCreationException> exceptions = new ArrayList<>();
+
+        this.indexReferences(references, exceptions);
+        throwExceptions(exceptions);
+    }
+
+    /**
+     * Reindex the references whose reindex was deferred in every index, e.g. from a background task. Indexes also
+     * reindex their own deferred references before they are read.
+     */
+    public void flush() {
+        final List<IndexCreationException> exceptions = new ArrayList<>();
+
+        for (final AbstractIndex<V> index : this.indexMap.values()) {
+            index.flush(exceptions);
+        }
+
+        throwExceptions(exceptions);
+    }
+
+    public boolean isDeferReindex() {
+        return this.deferReindex;
+    }
+
+    /**
+     * Set whether reindexing references only marks them dirty. Dirty references are reindexed by an index right
+     * before it is next read, or by {@link #flush()}, and a reference marked dirty several times is reindexed once.
+     * Turning deferring off flushes the dirty references.
+     *
+     * @param deferReindex true to defer reindexing
+     */
+    public void setDeferReindex(final boolean deferReindex) {
+        this.deferReindex = deferReindex;
+
+        if (!deferReindex) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Index references newly added to the store and reindex references already stored. New references are loaded
+     * index by index in a single pass, without removing stale keys first, and keys with a reducer are reduced once
+     * rather than once per added reference.
+     *
+     * @param newReferences references that were just added to the store
+     * @param references    references already stored
+     */
+    public void load(final Collection<Reference<V>> newReferences, final Collection<Reference<V>> references) {
+        final List<IndexCreationException> exceptions = new ArrayList<>();
+
+        if (this.isParallel(newReferences)) {
+            this.indexParallel(this.indexMap.values(), newReferences, true, exceptions);
+        } else if (!newReferences.isEmpty()) {
+            for (final AbstractIndex<V> index : this.indexMap.values()) {
+                index.load(newReferences, exceptions);
+            }
+        }
+
+        this.indexReferences(references, exceptions);
+        throwExceptions(exceptions);
     }
 
     public boolean removeIndex(final String indexName) {
@@ -52,35 +131,70 @@ public abstract class IndexManager<V> {
     }
 
     public void removeReference(final Reference<V> reference) {
-        this.indexMap.values().forEach(index -> index.removeIndex(reference));
+        for (final AbstractIndex<V> index : this.indexMap.values()) {
+            index.clearDirty(reference);
+            index.removeIndex(reference);
+        }
     }
 
     public void clear() {
-        this.indexMap.values().forEach(ReferenceIndex::clear);
+        for (final AbstractIndex<V> index : this.indexMap.values()) {
+            index.clearDirty();
+            index.clear();
+        }
     }
 
     public Collection<Index<V>> getIndexes() {
         return Collections.unmodifiableCollection(this.indexMap.values());
     }
 
+    /**
+     * Get the executor indexing large batches in parallel
+     *
+     * @return executor, or null if references are always indexed on the calling thread
+     */
+    public @Nullable IndexExecutor getIndexExecutor() {
+        return this.indexExecutor;
+    }
+
     public IndexManager<V> copy() {
-        final Set<ReferenceIndex<?, V>> copyOfIndexes = this.indexMap.values().stream().map(ReferenceIndex::copy).collect(Collectors.toSet());
-        return this.createCopy(copyOfIndexes);
+        final Set<AbstractIndex<V>> copyOfIndexes = this.indexMap.values().stream().map(index -> {
+            final AbstractIndex<V> copy = index.copy();
+            index.copyDirty(copy);
+            return copy;
+        }).collect(Collectors.toSet());
+
+        final IndexManager<V> copy = this.createCopy(copyOfIndexes);
+        copy.deferReindex = this.deferReindex;
+        return copy;
     }
 
-    protected abstract IndexManager<V> createCopy(Set<ReferenceIndex<?, V>> copyOfIndexes);
+    protected abstract IndexManager<V> createCopy(Set<AbstractIndex<V>> copyOfIndexes);
 
-    protected abstract <K> ReferenceIndex<K, V> createIndex(String indexName, IndexDefinition<K, V> indexDefinition);
+    protected abstract <K> AbstractIndex<V> createIndex(String indexName, IndexDefinition<K, V> indexDefinition);
 
-    private static <T> void indexReferences(final Collection<ReferenceIndex<?, T>> indexes, final Collection<Reference<T>> references) {
-        final List<IndexCreationException> exceptions = new ArrayList<>();
+    private void indexReferences(final Collection<Reference<V>> references, final List<IndexCreationException> exceptions) {
+        if (this.deferReindex) {
+            for (final Reference<V> reference : references) {
+                if (reference != null) {
+                    this.indexMap.values().forEach(index -> index.markDirty(reference));
+                }
+            }
 
-        for (final Reference<T> reference : references) {
+            return;
+        }
+
+        if (this.isParallel(references)) {
+            this.indexParallel(this.indexMap.values(), references, false, exceptions);
+            return;
+        }
+
+        for (final Reference<V> reference : references) {
             if (reference == null) {
                 continue;
             }
 
-            for (final ReferenceIndex<?, T> index : indexes) {
+            for (final AbstractIndex<V> index : this.indexMap.values()) {
                 try {
                     index.index(reference);
                 } catch (final IndexCreationException e) {
@@ -88,7 +202,95 @@ public abstract class IndexManager<V> {
                 }
             }
         }
+    }
+
+    private boolean isParallel(final Collection<Reference<V>> references) {
+        return Objects.nonNull(this.indexExecutor) && !this.indexMap.isEmpty() && references.size() >= this.indexExecutor.getThreshold();
+    }
+
+    /**
+     * Index references on the index executor. The keys of all indexes are first mapped by partitions of the references
+     * in parallel, then every index builds its posting lists from the mapped keys on a thread of its own. Exceptions
+     * are collected in the same order as when indexing on the calling thread.
+     *
+     * @param load true if the references are new to the indexes
+     */
+    private void indexParallel(final Collection<AbstractIndex<V>> indexes, final Collection<Reference<V>> references, final boolean load, final List<IndexCreationException> exceptions) {
+        final IndexExecutor executor = Objects.requireNonNull(this.indexExecutor);
+        final List<AbstractIndex<V>> indexList = new ArrayList<>(indexes);
+        final List<Reference<V>> referenceList = new ArrayList<>(references.size());
+
+        for (final Reference<V> reference : references) {
+            if (reference != null) {
+                referenceList.add(reference);
+            }
+        }
+
+        final int size = referenceList.size();
+        final int partitions = Math.max(1, Math.min(executor.getParallelism(), size));
+        final int partitionSize = (size + partitions - 1) / partitions;
+        final Object[][] keys = new Object[indexList.size()][size];
+        final List<List<IndexCreationException>> mapExceptions = new ArrayList<>(partitions);
+        final List<CompletableFuture<Void>> mapTasks = new ArrayList<>(partitions);
+
+        for (int from = 0; from < size; from += partitionSize) {
+            final int start = from;
+            final int end = Math.min(size, from + partitionSize);
+            final List<IndexCreationException> partitionExceptions = new ArrayList<>();
+
+            mapExceptions.add(partitionExceptions);
+            mapTasks.add(CompletableFuture.runAsync(() -> {
+                for (int i = start; i < end; i++) {
+                    final Reference<V> reference = referenceList.get(i);
+
+                    for (int index = 0; index < keys.length; index++) {
+                        try {
+                            keys[index][i] = indexList.get(index).mapKeys(reference);
+                        } catch (final IndexCreationException e) {
+                            partitionExceptions.add(e);
+                        }
+                    }
+                }
+            }, executor.getExecutor()));
+        }
+
+        join(mapTasks);
+
+        final List<List<IndexCreationException>> indexExceptions = new ArrayList<>(indexList.size());
+        final List<CompletableFuture<Void>> indexTasks = new ArrayList<>(indexList.size());
+
+        for (int index = 0; index < keys.length; index++) {
+            final AbstractIndex<V> abstractIndex = indexList.get(index);
+            final Object[] indexKeys = keys[index];
+            final List<IndexCreationException> buildExceptions = new ArrayList<>();
+
+            indexExceptions.add(buildExceptions);
+            indexTasks.add(CompletableFuture.runAsync(() -> abstractIndex.index(referenceList, indexKeys, load, buildExceptions), executor.getExecutor()));
+        }
+
+        join(indexTasks);
+
+        mapExceptions.forEach(exceptions::addAll);
+        indexExceptions.forEach(exceptions::addAll);
+    }
+
+    private static void join(final List<CompletableFuture<Void>> tasks) {
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw e;
+        }
+    }
 
+    static void throwExceptions(final List<IndexCreationException> exceptions) {
         if (!exceptions.isEmpty()) {
             final String message = (exceptions.size() == 1 ? "1 exception" : exceptions.size() + " exceptions") + " occurred during indexing";
 
@@ -0,0 +1,61 @@
+package net.tridentgames.membase.index;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.function.ToIntFunction;
+
+import net.tridentgames.membase.index.comparison.ComparisonPolicy;
+import net.tridentgames.membase.index.reducer.Reducer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Definition of an index mapping each value to a single int key. Keys are stored unboxed, see
+ * {@link PrimitiveReferenceIndex}. Comparison policies, sorting and substring indexes are not supported.
+ *
+ * @param <V> value type
+ */
+public final class IntIndexDefinition<V> extends IndexDefinition<Integer, V> {
+    private final ToIntFunction<V> keyMapper;
+
+    private IntIndexDefinition(final ToIntFunction<V> keyMapper) {
+        super(value -> Collections.singletonList(keyMapper.applyAsInt(value)));
+        this.keyMapper = keyMapper;
+    }
+
+    /**
+     * Specify a function that maps a given value to its int key. Example: IntIndexDefinition.of(Person::getId)
+     *
+     * @param keyMapper a function that maps a given value to a single indexed key
+     * @param <V>       value type
+     * @return index build
+     */
+    public static @NotNull <V> IntIndexDefinition<V> of(final ToIntFunction<V> keyMapper) {
+        return new IntIndexDefinition<>(keyMapper);
+    }
+
+    @Override
+    public IntIndexDefinition<V> withReducer(final Reducer<Integer, V> reducer) {
+        super.withReducer(reducer);
+        return this;
+    }
+
+    @Override
+    public IndexDefinition<Integer, V> withComparisonPolicy(final ComparisonPolicy<Integer> comparisonPolicy) {
+        throw new UnsupportedOperationException("Primitive indexes compare keys by value");
+    }
+
+    @Override
+    public IndexDefinition<Integer, V> withSorting(final Comparator<? super Integer> keyComparator) {
+        throw new UnsupportedOperationException("Primitive indexes are not sorted");
+    }
+
+    @Override
+    public IndexDefinition<Integer, V> withSubstringIndex(final int gramSize) {
+        throw new UnsupportedOperationException("Primitive indexes have no substring index");
+    }
+
+    @Override
+    @NotNull AbstractIndex<V> createIndex(final String indexName) {
+        return new PrimitiveReferenceIndex<>(indexName, this.keyMapper::applyAsInt, key -> (int) key, this.getReducer());
+    }
+}
@@ -0,0 +1,61 @@
+package net.tridentgames.membase.index;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.function.ToLongFunction;
+
+import net.tridentgames.membase.index.comparison.ComparisonPolicy;
+import net.tridentgames.membase.index.reducer.Reducer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Definition of an index mapping each value to a single long key. Keys are stored unboxed, see
+ * {@link PrimitiveReferenceIndex}. Comparison policies, sorting and substring indexes are not supported.
+ *
+ * @param <V> value type
+ */
+public final class LongIndexDefinition<V> extends IndexDefinition<Long, V> {
+    private final ToLongFunction<V> keyMapper;
+
+    private LongIndexDefinition(final ToLongFunction<V> keyMapper) {
+        super(value -> Collections.singletonList(keyMapper.applyAsLong(value)));
+        this.keyMapper = keyMapper;
+    }
+
+    /**
+     * Specify a function that maps a given value to its long key. Example: LongIndexDefinition.of(Person::getId)
+     *
+     * @param keyMapper a function that maps a given value to a single indexed key
+     * @param <V>       value type
+     * @return index build
+     */
+    public static @NotNull <V> LongIndexDefinition<V> of(final ToLongFunction<V> keyMapper) {
+        return new LongIndexDefinition<>(keyMapper);
+    }
+
+    @Override
+    public LongIndexDefinition<V> withReducer(final Reducer<Long, V> reducer) {
+        super.withReducer(reducer);
+        return this;
+    }
+
+    @Override
+    public IndexDefinition<Long, V> withComparisonPolicy(final ComparisonPolicy<Long> comparisonPolicy) {
+        throw new UnsupportedOperationException("Primitive indexes compare keys by value");
+    }
+
+    @Override
+    public IndexDefinition<Long, V> withSorting(final Comparator<? super Long> keyComparator) {
+        throw new UnsupportedOperationException("Primitive indexes are not sorted");
+    }
+
+    @Override
+    public IndexDefinition<Long, V> withSubstringIndex(final int gramSize) {
+        throw new UnsupportedOperationException("Primitive indexes have no substring index");
+    }
+
+    @Override
+    @NotNull AbstractIndex<V> createIndex(final String indexName) {
+        return new PrimitiveReferenceIndex<>(indexName, this.keyMapper, Long::valueOf, this.getReducer());
+    }
+}
@@ -0,0 +1,196 @@
+package net.tridentgames.membase.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Inverted index from n-grams to the String keys of a {@link ReferenceIndex} containing them. Substring lookups
+ * intersect the key sets of every gram in the searched fragment and verify the remaining candidates, so only keys
+ * sharing all grams with the fragment are ever compared. Copies share their grams until either index changes the keys
+ * of a gram, which copies the keys of that gram only.
+ *
+ * @param <K> key type
+ */
+public class NgramIndex<K> {
+    private static final Comparator<Set<?>> BY_SIZE = Comparator.comparingInt(Set::size);
+
+    private final int gramSize;
+    private Map<String, Set<K>> gramToKeysMap;
+    private final Set<String> ownedGrams; // grams whose keys are not shared with a copy
+    private boolean shared; // the map is shared with a copy and copied before the next write
+
+    private NgramIndex(final int gramSize, final Map<String, Set<K>> gramToKeysMap, final boolean shared) {
+        this.gramSize = gramSize;
+        this.gramToKeysMap = gramToKeysMap;
+        this.ownedGrams = new HashSet<>();
+        this.shared = shared;
+    }
+
+    public NgramIndex(final int gramSize) {
+        this(gramSize, new ConcurrentHashMap<>(), false);
+    }
+
+    /**
+     * Register the grams of a newly indexed key
+     *
+     * @param key key
+     */
+    public void add(@NotNull K key) {
+        if (!(key instanceof String)) {
+            return;
+        }
+
+        this.unshare();
+
+        for (final String gram : this.grams((String) key)) {
+            this.ownKeys(gram).add(key);
+        }
+    }
+
+    /**
+     * Forget the grams of a key that is no longer indexed
+     *
+     * @param key key
+     */
+    public void remove(@NotNull K key) {
+        if (!(key instanceof String)) {
+            return;
+        }
+
+        this.unshare();
+
+        for (final String gram : this.grams((String) key)) {
+            final Set<K> keys = this.gramToKeysMap.get(gram);
+
+            if (Objects.isNull(keys) || !keys.contains(key)) {
+                continue;
+            }
+
+            if (keys.size() == 1) {
+                this.gramToKeysMap.remove(gram);
+                this.ownedGrams.remove(gram);
+            } else {
+                this.ownKeys(gram).remove(key);
+            }
+        }
+    }
+
+    /**
+     * Find all keys that contain the given fragment. Fragments shorter than the gram size cannot be looked up by gram
+     * and are matched against every known key instead.
+     *
+     * @param fragment fragment to search for
+     * @param allKeys  every key held by the owning index
+     * @return matching keys
+     */
+    public @NotNull Set<K> find(@NotNull String fragment, @NotNull Collection<K> allKeys) {
+        final Set<K> matches = new LinkedHashSet<>();
+
+        if (fragment.length() < this.gramSize) {
+            for (final K key : allKeys) {
+                if (key instanceof String && ((String) key).contains(fragment)) {
+                    matches.add(key);
+                }
+            }
+
+            return matches;
+        }
+
+        final List<Set<K>> candidates = new ArrayList<>();
+
+        for (final String gram : this.grams(fragment)) {
+            final Set<K> keys = this.gramToKeysMap.get(gram);
+
+            if (keys == null) {
+                return matches;
+            }
+
+            candidates.add(keys);
+        }
+
+        candidates.sort(BY_SIZE);
+
+        for (final K key : candidates.get(0)) {
+            if (this.containsAll(key, candidates) && ((String) key).contains(fragment)) {
+                matches.add(key);
+            }
+        }
+
+        return matches;
+    }
+
+    public void clear() {
+        this.gramToKeysMap = new ConcurrentHashMap<>();
+        this.ownedGrams.clear();
+        this.shared = false;
+    }
+
+    /**
+     * Create a copy sharing all grams with this index, see {@link NgramIndex}
+     *
+     * @return copy
+     */
+    public @NotNull NgramIndex<K> copy() {
+        this.shared = true;
+        return new NgramIndex<>(this.gramSize, this.gramToKeysMap, true);
+    }
+
+    private void unshare() {
+        if (this.shared) {
+            this.gramToKeysMap = new ConcurrentHashMap<>(this.gramToKeysMap);
+            this.ownedGrams.clear();
+            this.shared = false;
+        }
+    }
+
+    /**
+     * Get the keys of a gram for writing, creating them or copying them first if they may be shared with a copy
+     */
+    private @NotNull Set<K> ownKeys(final String gram) {
+        final Set<K> keys = this.gramToKeysMap.get(gram);
+
+        if (Objects.nonNull(keys) && this.ownedGrams.contains(gram)) {
+            return keys;
+        }
+
+        final Set<K> ownedKeys = ConcurrentHashMap.newKeySet();
+
+        if (Objects.nonNull(keys)) {
+            ownedKeys.addAll(keys);
+        }
+
+        this.gramToKeysMap.put(gram, ownedKeys);
+        this.ownedGrams.add(gram);
+        return ownedKeys;
+    }
+
+    private boolean containsAll(final K key, final List<Set<K>> candidates) {
+        for (int i = 1; i < candidates.size(); i++) {
+            if (!candidates.get(i).contains(key)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private @NotNull Set<String> grams(@NotNull String value) {
+        final Set<String> grams = new HashSet<>();
+
+        for (int i = 0; i + this.gramSize <= value.length(); i++) {
+            grams.add(value.substring(i, i + this.gramSize));
+        }
+
+        return grams;
+    }
+}
@@ -0,0 +1,486 @@
+package net.tridentgames.membase.index;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.ToLongFunction;
+
+import net.tridentgames.membase.index.primitive.DenseIntMap;
+import net.tridentgames.membase.index.primitive.LongObjectMap;
+import net.tridentgames.membase.index.primitive.ObjectLongMap;
+import net.tridentgames.membase.index.primitive.RoaringBitmap;
+import net.tridentgames.membase.index.reducer.Reducer;
+import net.tridentgames.membase.query.enums.IndexOperator;
+import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+/**
+ * Maintains indexes against references to stored items by a single primitive key per item. Keys are held in
+ * open-addressing tables and never boxed, and a key matched by a single item stores its reference directly instead of
+ * a {@link References} set. Writes must be guarded by the owning store.
+ *
+ * @param <K> boxed key type, used for reducers
+ * @param <V> value type
+ */
+public class PrimitiveReferenceIndex<K, V> extends AbstractIndex<V> {
+    private final String name;
+    private final ToLongFunction<V> keyMapper;
+    private final LongFunction<K> keyBoxer;
+    private final @Nullable Reducer<K, V> reducer;
+    private final LongObjectMap<Object> keyToReferencesMap; // a single Reference or References per key
+    private final ObjectLongMap<Reference<V>> referenceToKeyMap;
+    private final DenseIntMap<Reference<V>> referenceMap; // reference ids to indexed references
+    private IntFunction<Reference<V>> resolver; // replaced on copy, references created with an earlier one are shared
+
+    private PrimitiveReferenceIndex(final String name, final ToLongFunction<V> keyMapper, final LongFunction<K> keyBoxer, @Nullable final Reducer<K, V> reducer, final LongObjectMap<Object> keyToReferencesMap, final ObjectLongMap<Reference<V>> referenceToKeyMap, final DenseIntMap<Reference<V>> referenceMap) {
+        this.name = name;
+        this.keyMapper = keyMapper;
+        this.keyBoxer = keyBoxer;
+        this.reducer = reducer;
+        this.keyToReferencesMap = keyToReferencesMap;
+        this.referenceToKeyMap = referenceToKeyMap;
+        this.referenceMap = referenceMap;
+        this.resolver = createResolver(referenceMap);
+    }
+
+    public PrimitiveReferenceIndex(final String indexName, final ToLongFunction<V> keyMapper, final LongFunction<K> keyBoxer, @Nullable final Reducer<K, V> reducer) {
+        this(indexName, keyMapper, keyBoxer, reducer, new LongObjectMap<>(), new ObjectLongMap<>(), new DenseIntMap<>());
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public @NotNull Optional<V> findFirst(final Object key) {
+        if (!isKey(key)) {
+            return Optional.empty();
+        }
+
+        return this.findFirstLong(((Number) key).longValue());
+    }
+
+    @Override
+    public @NotNull Optional<V> findFirstInt(final int key) {
+        return this.findFirstLong(key);
+    }
+
+    @Override
+    public @NotNull Optional<V> findFirstLong(final long key) {
+        return Optional.ofNullable(this.getFirst(key));
+    }
+
+    @Override
+    public @Nullable V getFirst(final Object key) {
+        return isKey(key) ? this.getFirst(((Number) key).longValue()) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private @Nullable V getFirst(final long key) {
+        final Object references = this.lookup(key);
+
+        if (references instanceof References) {
+            return ((References<K, V>) references).getFirst(this.resolver);
+        }
+
+        return Objects.isNull(references) ? null : ((Reference<V>) references).get();
+    }
+
+    @Override
+    public List<V> get(final Object key) {
+        if (!isKey(key)) {
+            return Collections.emptyList();
+        }
+
+        return this.getLong(((Number) key).longValue());
+    }
+
+    @Override
+    public List<V> getInt(final int key) {
+        return this.getLong(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<V> getLong(final long key) {
+        final Object references = this.lookup(key);
+
+        if (Objects.isNull(references)) {
+            return Collections.emptyList();
+        }
+
+        if (references instanceof References) {
+            return ((References<K, V>) references).getAll(this.resolver);
+        }
+
+        return Collections.singletonList(((Reference<V>) references).get());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int get(final Object key, final Collection<? super V> results) {
+        final Object references = isKey(key) ? this.lookup(((Number) key).longValue()) : null;
+
+        if (references instanceof References) {
+            final int size = results.size();
+            ((References<K, V>) references).addTo(results, this.resolver);
+            return results.size() - size;
+        }
+
+        if (Objects.isNull(references)) {
+            return 0;
+        }
+
+        results.add(((Reference<V>) references).get());
+        return 1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(final Object key, final Consumer<? super V> action) {
+        final Object references = isKey(key) ? this.lookup(((Number) key).longValue()) : null;
+
+        if (references instanceof References) {
+            ((References<K, V>) references).forEach(action, this.resolver);
+        } else if (Objects.nonNull(references)) {
+            action.accept(((Reference<V>) references).get());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int count(final Object key) {
+        final Object references = isKey(key) ? this.lookup(((Number) key).longValue()) : null;
+
+        if (references instanceof References) {
+            return ((References<K, V>) references).size();
+        }
+
+        return Objects.isNull(references) ? 0 : 1;
+    }
+
+    @Override
+    public boolean contains(final Object key) {
+        return this.count(key) > 0;
+    }
+
+    @Override
+    public @NotNull @Unmodifiable Set<Object> keys() {
+        this.flush();
+
+        final Set<Object> keys = new HashSet<>();
+        this.keyToReferencesMap.forEach((references, key) -> keys.add(this.keyBoxer.apply(key)));
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * Get all references matching the key using the given operator. Range operators compare every indexed key, as
+     * keys are not kept sorted. {@link IndexOperator#CONTAINS} matches the key itself and
+     * {@link IndexOperator#PREFIX} never matches a numeric key.
+     *
+     * @param operator operator to match keys with
+     * @param key      indexed key or lower bound to lookup
+     * @param upperKey upper bound of a {@link IndexOperator#BETWEEN} lookup
+     * @return matching references
+     */
+    @Override
+    public @NotNull Set<Reference<V>> getReferences(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        this.flush();
+
+        if (!isKey(key) || operator == IndexOperator.PREFIX) {
+            return Collections.emptySet();
+        }
+
+        final long from = ((Number) key).longValue();
+
+        switch (operator) {
+            case GREATER_THAN:
+                return this.getRangeReferences(from, Long.MAX_VALUE, false);
+            case LESS_THAN:
+                return this.getRangeReferences(Long.MIN_VALUE, from, false);
+            case BETWEEN:
+                if (!isKey(upperKey)) {
+                    return Collections.emptySet();
+                }
+
+                return this.getRangeReferences(from, ((Number) upperKey).longValue(), true);
+            default:
+                return this.getReferences(from);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @Nullable RoaringBitmap getIds(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        this.flush();
+
+        final Set<Reference<V>> references = this.getReferences(operator, key, upperKey);
+
+        if (references instanceof ReferenceSet) {
+            return ((ReferenceSet<V>) references).getIds();
+        }
+
+        if (Objects.nonNull(this.reducer)) {
+            return null;
+        }
+
+        final RoaringBitmap ids = new RoaringBitmap();
+        references.forEach(reference -> ids.add(reference.getId()));
+        return ids;
+    }
+
+    @Override
+    public void index(final Reference<V> reference) throws IndexCreationException {
+        this.index(reference, this.generateKey(reference));
+    }
+
+    @Override
+    void load(final Collection<Reference<V>> references, final List<IndexCreationException> exceptions) {
+        final Set<References<K, V>> loaded = Objects.isNull(this.reducer) ? Collections.emptySet() : new HashSet<>();
+
+        for (final Reference<V> reference : references) {
+            try {
+                final References<K, V> keyReferences = this.insert(reference, this.generateKey(reference), true);
+
+                if (Objects.nonNull(this.reducer)) {
+                    loaded.add(keyReferences);
+                }
+            } catch (final IndexCreationException e) {
+                exceptions.add(e);
+            }
+        }
+
+        loaded.forEach(References::reduceLoaded);
+    }
+
+    @Override
+    @Nullable Object mapKeys(final Reference<V> reference) throws IndexCreationException {
+        return this.generateKey(reference);
+    }
+
+    @Override
+    void index(final List<Reference<V>> references, final Object[] keys, final boolean load, final List<IndexCreationException> exceptions) {
+        final Set<References<K, V>> loaded = Objects.isNull(this.reducer) || !load ? Collections.emptySet() : new HashSet<>();
+
+        for (int i = 0; i < keys.length; i++) {
+            if (Objects.isNull(keys[i])) {
+                continue;
+            }
+
+            final long key = (Long) keys[i];
+
+            if (!load) {
+                this.index(references.get(i), key);
+                continue;
+            }
+
+            final References<K, V> keyReferences = this.insert(references.get(i), key, true);
+
+            if (Objects.nonNull(this.reducer)) {
+                loaded.add(keyReferences);
+            }
+        }
+
+        loaded.forEach(References::reduceLoaded);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void index(final Reference<V> reference, final long key) {
+        if (this.referenceToKeyMap.containsKey(reference)) {
+            if (this.referenceToKeyMap.getOrDefault(reference, 0) == key) {
+                if (Objects.nonNull(this.reducer)) {
+                    ((References<K, V>) this.ownReferences(key)).update(reference); // key unchanged, only re-reduce
+                }
+
+                return;
+            }
+
+            this.removeIndex(reference);
+        }
+
+        this.insert(reference, key, false);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void removeIndex(final Reference<V> reference) {
+        if (!this.referenceToKeyMap.containsKey(reference)) {
+            return;
+        }
+
+        final long key = this.referenceToKeyMap.getOrDefault(reference, 0);
+        final Object references = this.ownReferences(key);
+
+        if (references instanceof References) {
+            ((References<K, V>) references).remove(reference);
+
+            if (((References<K, V>) references).isEmpty()) {
+                this.keyToReferencesMap.remove(key);
+            }
+        } else if (Objects.equals(references, reference)) {
+            this.keyToReferencesMap.remove(key);
+        }
+
+        this.referenceToKeyMap.remove(reference);
+        this.referenceMap.remove(reference.getId());
+    }
+
+    @Override
+    public void clear() {
+        this.keyToReferencesMap.clear();
+        this.referenceToKeyMap.clear();
+        this.referenceMap.clear();
+    }
+
+    /**
+     * Create a copy sharing all tables and references with this index. The tables copy themselves on their next write,
+     * and both indexes copy the references of a key before modifying them.
+     */
+    @Override
+    public @NotNull PrimitiveReferenceIndex<K, V> copy() {
+        final PrimitiveReferenceIndex<K, V> copy = new PrimitiveReferenceIndex<>(this.name, this.keyMapper, this.keyBoxer, this.reducer, this.keyToReferencesMap.copy(), this.referenceToKeyMap.copy(), this.referenceMap.copy());
+
+        this.resolver = createResolver(this.referenceMap); // disown all references, they are now shared
+        return copy;
+    }
+
+    /**
+     * Insert a reference that is not indexed under any key
+     *
+     * @param load true to defer reducing to {@link References#reduceLoaded()}
+     * @return references of the key, or null if the key holds the single reference directly
+     */
+    @SuppressWarnings("unchecked")
+    private @Nullable References<K, V> insert(final Reference<V> reference, final long key, final boolean load) {
+        this.referenceToKeyMap.put(reference, key);
+        this.referenceMap.put(reference.getId(), reference);
+
+        final Object references = this.ownReferences(key);
+
+        if (Objects.isNull(references) && Objects.isNull(this.reducer)) {
+            this.keyToReferencesMap.put(key, reference);
+            return null;
+        }
+
+        final References<K, V> keyReferences;
+
+        if (Objects.isNull(references)) {
+            keyReferences = new References<>(this.keyBoxer.apply(key), this.resolver, this.reducer);
+            this.keyToReferencesMap.put(key, keyReferences);
+        } else if (references instanceof References) {
+            keyReferences = (References<K, V>) references;
+        } else {
+            keyReferences = new References<>(this.keyBoxer.apply(key), this.resolver, (Reference<V>) references, null);
+            this.keyToReferencesMap.put(key, keyReferences);
+        }
+
+        if (load) {
+            keyReferences.load(reference);
+        } else {
+            keyReferences.add(reference);
+        }
+
+        return keyReferences;
+    }
+
+    /**
+     * Get the single reference or references of a key for modification, copying references shared with a copy of this
+     * index first
+     */
+    @SuppressWarnings("unchecked")
+    private @Nullable Object ownReferences(final long key) {
+        final Object references = this.keyToReferencesMap.get(key);
+
+        if (!(references instanceof References) || ((References<K, V>) references).isOwnedBy(this.resolver)) {
+            return references;
+        }
+
+        final References<K, V> referencesCopy = ((References<K, V>) references).copy(this.resolver);
+        this.keyToReferencesMap.put(key, referencesCopy);
+        return referencesCopy;
+    }
+
+    /**
+     * Get the single reference or references of a key, after reindexing deferred references
+     */
+    private @Nullable Object lookup(final long key) {
+        this.flush();
+        return this.keyToReferencesMap.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private @NotNull Set<Reference<V>> getReferences(final long key) {
+        final Object references = this.keyToReferencesMap.get(key);
+
+        if (Objects.isNull(references)) {
+            return Collections.emptySet();
+        }
+
+        if (references instanceof References) {
+            return ((References<K, V>) references).getAllReferences(this.resolver);
+        }
+
+        return Collections.singleton((Reference<V>) references);
+    }
+
+    @SuppressWarnings("unchecked")
+    private @NotNull Set<Reference<V>> getRangeReferences(final long from, final long to, final boolean inclusive) {
+        if (from > to) {
+            return Collections.emptySet();
+        }
+
+        final Set<Reference<V>> results = new LinkedHashSet<>();
+
+        this.keyToReferencesMap.forEach((references, key) -> {
+            if (inclusive ? key < from || key > to : key <= from || key >= to) {
+                return;
+            }
+
+            if (references instanceof References) {
+                results.addAll(((References<K, V>) references).getAllReferences(this.resolver));
+            } else {
+                results.add((Reference<V>) references);
+            }
+        });
+
+        return results;
+    }
+
+    private long generateKey(final Reference<V> reference) throws IndexCreationException {
+        final V item;
+
+        try {
+            item = reference.get();
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+            throw new IndexCreationException("Index: " + this.name + ". Unable to retrieve item to index", e);
+        }
+
+        try {
+            return this.keyMapper.applyAsLong(item);
+        } catch (final RuntimeException e) {
+            e.printStackTrace();
+            throw new IndexCreationException("Index: " + this.name + ". Error generating indexes for item: " + item, e);
+        }
+    }
+
+    private static boolean isKey(@Nullable final Object key) {
+        return key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte;
+    }
+
+    @Override
+    public String toString() {
+        return "Index[name='" + this.name + "']";
+    }
+}
@@ -1,48 +1,77 @@
 package net.tridentgames.membase.index;
 
 import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 import net.tridentgames.membase.index.comparison.ComparisonPolicy;
+import net.tridentgames.membase.index.primitive.DenseIntMap;
+import net.tridentgames.membase.index.primitive.RoaringBitmap;
 import net.tridentgames.membase.index.reducer.Reducer;
+import net.tridentgames.membase.query.enums.IndexOperator;
 import net.tridentgames.membase.reference.Reference;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 
 /**
  * Maintains indexes against references to stored items
  *
  * @param <V> value type
  */
-public class ReferenceIndex<K, V> implements Index<V> {
+public class ReferenceIndex<K, V> extends AbstractIndex<V> {
     private final String name;
     private final KeyMapper<Collection<K>, V> keyMapper;
     private final Reducer<K, V> reducer;
     private final ComparisonPolicy<K> comparisonPolicy;
-    private final Map<K, References<K, V>> keyToReferencesMap;
-    private final Map<Reference<V>, Set<K>> referenceToKeysMap;
-
-    private ReferenceIndex(final String name, final KeyMapper<Collection<K>, V> keyMapper, final Reducer<K, V> reducer, final ComparisonPolicy<K> comparisonPolicy, final Map<K, References<K, V>> keyToReferencesMap, final Map<Reference<V>, Set<K>> referenceToKeysMap) {
+    private Map<K, References<K, V>> keyToReferencesMap;
+    private final DenseIntMap<Reference<V>> referenceMap; // reference ids to indexed references
+    private final DenseIntMap<Set<K>> referenceToKeysMap; // reference ids to their keys
+    private IntFunction<Reference<V>> resolver; // replaced on copy, references created with an earlier one are shared
+    private final @Nullable NgramIndex<K> ngramIndex;
+    private boolean shared; // the key map is shared with a copy and copied before the next write
+
+    private ReferenceIndex(final String name, final KeyMapper<Collection<K>, V> keyMapper, final Reducer<K, V> reducer, final ComparisonPolicy<K> comparisonPolicy, final Map<K, References<K, V>> keyToReferencesMap, final DenseIntMap<Reference<V>> referenceMap, final DenseIntMap<Set<K>> referenceToKeysMap, @Nullable final NgramIndex<K> ngramIndex) {
         this.name = name;
         this.keyMapper = keyMapper;
         this.reducer = reducer;
         this.comparisonPolicy = comparisonPolicy;
         this.keyToReferencesMap = keyToReferencesMap;
+        this.referenceMap = referenceMap;
         this.referenceToKeysMap = referenceToKeysMap;
+        this.resolver = createResolver(referenceMap);
+        this.ngramIndex = ngramIndex;
     }
 
     public ReferenceIndex(final String indexName, final KeyMapper<Collection<K>, V> keyMapper, final Reducer<K, V> reducer, final ComparisonPolicy<K> comparisonPolicy) {
-        this(indexName, keyMapper, reducer, comparisonPolicy, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        this(indexName, keyMapper, reducer, comparisonPolicy, new ConcurrentHashMap<>(), new DenseIntMap<>(), new DenseIntMap<>(), null);
+    }
+
+    public ReferenceIndex(final String indexName, final IndexDefinition<K, V> indexDefinition) {
+        this(
+            indexName,
+            indexDefinition.getKeyMapper(),
+            indexDefinition.getReducer(),
+            indexDefinition.getComparisonPolicy(),
+            indexDefinition.isSorted() ? new ConcurrentSkipListMap<>(indexDefinition.getKeyComparator()) : new ConcurrentHashMap<>(),
+            new DenseIntMap<>(),
+            new DenseIntMap<>(),
+            indexDefinition.getGramSize() > 0 ? new NgramIndex<>(indexDefinition.getGramSize()) : null
+        );
     }
 
     @Override
@@ -52,87 +81,515 @@ public class ReferenceIndex<K, V> implements Index<V> {
 
     @Override
     public @NotNull Optional<V> findFirst(final Object key) {
-        final K comparableKey = this.getComparableKey(key);
-        final References<K, V> references = this.keyToReferencesMap.get(comparableKey);
-
-        if (Objects.isNull(references)) {
-            return Optional.empty();
-        }
+        return Optional.ofNullable(this.getFirst(key));
+    }
 
-        return references.findFirst();
+    @Override
+    public @Nullable V getFirst(final Object key) {
+        final References<K, V> references = this.lookup(key);
+        return Objects.isNull(references) ? null : references.getFirst(this.resolver);
     }
 
     public @NotNull Set<Reference<V>> getReferences(final Object key) {
-        final K comparableKey = this.getComparableKey(key);
-        final References<K, V> references = this.keyToReferencesMap.get(comparableKey);
+        return this.getReferences(IndexOperator.EQUALS, key, null);
+    }
 
-        if (Objects.isNull(references)) {
+    /**
+     * Get all references matching the key using the given operator. {@link IndexOperator#CONTAINS} matches keys
+     * containing the value as a substring when the index was created with a substring index, otherwise it matches
+     * the value itself, which is an element of the collection an item was indexed by.
+     *
+     * @param operator operator to match keys with
+     * @param key      indexed key or fragment to lookup
+     * @return matching references
+     */
+    public @NotNull Set<Reference<V>> getReferences(final IndexOperator operator, final Object key) {
+        return this.getReferences(operator, key, null);
+    }
+
+    /**
+     * Get all references matching the key using the given operator. Range operators walk the sub map of a sorted
+     * index and fall back to comparing every key of an unsorted index, in both cases without visiting stored items.
+     *
+     * @param operator operator to match keys with
+     * @param key      indexed key, fragment or lower bound to lookup
+     * @param upperKey upper bound of a {@link IndexOperator#BETWEEN} lookup
+     * @return matching references
+     */
+    @Override
+    public @NotNull Set<Reference<V>> getReferences(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        this.flush();
+
+        final Collection<References<K, V>> matches = this.getMatches(operator, key, upperKey);
+
+        if (matches.isEmpty()) {
             return Collections.emptySet();
         }
 
-        return references.getAllReferences();
+        if (matches.size() == 1) {
+            return matches.iterator().next().getAllReferences(this.resolver);
+        }
+
+        final Set<Reference<V>> results = new LinkedHashSet<>();
+        matches.forEach(references -> results.addAll(references.getAllReferences(this.resolver)));
+        return results;
+    }
+
+    @Override
+    public @Nullable RoaringBitmap getIds(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        this.flush();
+
+        final Collection<References<K, V>> matches = this.getMatches(operator, key, upperKey);
+
+        if (matches.size() == 1) {
+            return matches.iterator().next().getIds();
+        }
+
+        final RoaringBitmap results = new RoaringBitmap();
+
+        for (final References<K, V> references : matches) {
+            final RoaringBitmap ids = references.getIds();
+
+            if (Objects.isNull(ids)) {
+                return null;
+            }
+
+            results.orWith(ids);
+        }
+
+        return results;
     }
 
     @Override
     public List<V> get(final Object key) {
-        final K comparableKey = this.getComparableKey(key);
-        final References<K, V> references = this.keyToReferencesMap.get(comparableKey);
+        final References<K, V> references = this.lookup(key);
+        return Objects.isNull(references) ? Collections.emptyList() : references.getAll(this.resolver);
+    }
+
+    @Override
+    public int get(final Object key, final Collection<? super V> results) {
+        final References<K, V> references = this.lookup(key);
 
         if (Objects.isNull(references)) {
-            return Collections.emptyList();
+            return 0;
         }
 
-        return references.getAll();
+        final int size = results.size();
+        references.addTo(results, this.resolver);
+        return results.size() - size;
     }
 
+    @Override
+    public void forEach(final Object key, final Consumer<? super V> action) {
+        final References<K, V> references = this.lookup(key);
+
+        if (Objects.nonNull(references)) {
+            references.forEach(action, this.resolver);
+        }
+    }
+
+    @Override
+    public int count(final Object key) {
+        final References<K, V> references = this.lookup(key);
+        return Objects.isNull(references) ? 0 : references.size();
+    }
+
+    @Override
+    public boolean contains(final Object key) {
+        final References<K, V> references = this.lookup(key);
+        return Objects.nonNull(references) && references.size() > 0;
+    }
+
+    @Override
+    public @NotNull @Unmodifiable Set<Object> keys() {
+        this.flush();
+        return Collections.unmodifiableSet(new LinkedHashSet<>(this.keyToReferencesMap.keySet()));
+    }
+
+    @Override
     public void index(final Reference<V> reference) throws IndexCreationException {
-        final Set<K> keys = this.generateKeys(reference);
+        this.index(reference, this.generateKeys(reference));
+    }
+
+    @Override
+    void load(final Collection<Reference<V>> references, final List<IndexCreationException> exceptions) {
+        final Set<References<K, V>> loaded = Objects.isNull(this.reducer) ? Collections.emptySet() : new HashSet<>();
+
+        for (final Reference<V> reference : references) {
+            try {
+                this.load(reference, this.generateKeys(reference), loaded);
+            } catch (final IndexCreationException e) {
+                exceptions.add(e);
+            }
+        }
+
+        loaded.forEach(References::reduceLoaded);
+    }
+
+    @Override
+    @Nullable Object mapKeys(final Reference<V> reference) throws IndexCreationException {
+        return this.generateKeys(reference);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void index(final List<Reference<V>> references, final Object[] keys, final boolean load, final List<IndexCreationException> exceptions) {
+        final Set<References<K, V>> loaded = Objects.isNull(this.reducer) || !load ? Collections.emptySet() : new HashSet<>();
 
-        this.removeIndex(reference);
+        for (int i = 0; i < keys.length; i++) {
+            if (Objects.isNull(keys[i])) {
+                continue;
+            }
 
-        if (!keys.isEmpty()) {
-            this.referenceToKeysMap.put(reference, Collections.unmodifiableSet(keys));
-            keys.forEach(key -> this.keyToReferencesMap.computeIfAbsent(key, ignore -> new References<>(key, reference, this.reducer)).add(reference));
+            if (load) {
+                this.load(references.get(i), (Set<K>) keys[i], loaded);
+            } else {
+                this.index(references.get(i), (Set<K>) keys[i]);
+            }
         }
+
+        loaded.forEach(References::reduceLoaded);
     }
 
+    @Override
     public void removeIndex(final Reference<V> reference) {
-        final Set<K> keys = this.referenceToKeysMap.get(reference);
+        if (this.referenceMap.get(reference.getId()) != reference) {
+            return;
+        }
+
+        for (final K key : this.referenceToKeysMap.get(reference.getId())) {
+            this.removeKey(key, reference);
+        }
 
-        if (Objects.isNull(keys)) {
+        this.referenceMap.remove(reference.getId());
+        this.referenceToKeysMap.remove(reference.getId());
+    }
+
+    @Override
+    public void clear() {
+        this.keyToReferencesMap = this.keyToReferencesMap instanceof ConcurrentSkipListMap
+            ? new ConcurrentSkipListMap<>(((ConcurrentSkipListMap<K, References<K, V>>) this.keyToReferencesMap).comparator())
+            : new ConcurrentHashMap<>();
+        this.shared = false;
+        this.referenceMap.clear();
+        this.referenceToKeysMap.clear();
+
+        if (Objects.nonNull(this.ngramIndex)) {
+            this.ngramIndex.clear();
+        }
+    }
+
+    /**
+     * Create a copy sharing the key map and all references with this index. Both indexes copy the key map before
+     * their next write, and the references of a key before modifying them.
+     */
+    @Override
+    public @NotNull ReferenceIndex<K, V> copy() {
+        final NgramIndex<K> ngramIndexCopy = Objects.isNull(this.ngramIndex) ? null : this.ngramIndex.copy();
+        final ReferenceIndex<K, V> copy = new ReferenceIndex<>(this.name, this.keyMapper, this.reducer, this.comparisonPolicy, this.keyToReferencesMap, this.referenceMap.copy(), this.referenceToKeysMap.copy(), ngramIndexCopy);
+
+        copy.shared = true;
+        this.shared = true;
+        this.resolver = createResolver(this.referenceMap); // disown all references, they are now shared
+        return copy;
+    }
+
+    /**
+     * Index a reference under the given keys. Only keys the reference moved from or to are updated, keys it keeps are
+     * merely reduced again.
+     */
+    private void index(final Reference<V> reference, final Set<K> keys) {
+        if (keys.isEmpty()) {
+            this.removeIndex(reference);
             return;
         }
 
+        final Set<K> previousKeys = this.referenceMap.get(reference.getId()) == reference ? this.referenceToKeysMap.get(reference.getId()) : Collections.emptySet();
+
+        for (final K key : previousKeys) {
+            if (keys.contains(key)) {
+                if (Objects.nonNull(this.reducer)) {
+                    this.ownReferences(key).update(reference);
+                }
+            } else {
+                this.removeKey(key, reference);
+            }
+        }
+
         for (final K key : keys) {
-            final References<K, V> references = this.keyToReferencesMap.get(key);
+            if (!previousKeys.contains(key)) {
+                this.ownOrCreateReferences(key).add(reference);
+            }
+        }
+
+        if (!keys.equals(previousKeys)) {
+            this.referenceMap.put(reference.getId(), reference);
+            this.referenceToKeysMap.put(reference.getId(), keys.size() == 1 ? Collections.singleton(keys.iterator().next()) : Collections.unmodifiableSet(keys));
+        }
+    }
+
+    private void removeKey(final K key, final Reference<V> reference) {
+        final References<K, V> references = this.ownReferences(key);
+
+        if (references != null) {
+            references.remove(reference);
 
-            if (reference != null) {
-                if (references != null) {
-                    references.remove(reference);
+            if (references.isEmpty()) {
+                this.keyToReferencesMap.remove(key);
 
-                    if (references.isEmpty()) {
-                        this.keyToReferencesMap.remove(key);
-                    }
+                if (Objects.nonNull(this.ngramIndex)) {
+                    this.ngramIndex.remove(key);
                 }
             }
         }
+    }
+
+    /**
+     * Index a reference that is not indexed yet, deferring reduction of the touched keys to the caller
+     *
+     * @param loaded collects the references of touched keys when a reducer is set
+     */
+    private void load(final Reference<V> reference, final Set<K> keys, final Set<References<K, V>> loaded) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        this.referenceMap.put(reference.getId(), reference);
+        this.referenceToKeysMap.put(reference.getId(), keys.size() == 1 ? Collections.singleton(keys.iterator().next()) : Collections.unmodifiableSet(keys));
+
+        for (final K key : keys) {
+            final References<K, V> keyReferences = this.ownOrCreateReferences(key);
+            keyReferences.load(reference);
 
-        this.referenceToKeysMap.remove(reference);
+            if (Objects.nonNull(this.reducer)) {
+                loaded.add(keyReferences);
+            }
+        }
     }
 
-    public void clear() {
-        this.keyToReferencesMap.clear();
-        this.referenceToKeysMap.clear();
+    /**
+     * Get the references of a single key, after reindexing deferred references
+     */
+    private @Nullable References<K, V> lookup(final Object key) {
+        this.flush();
+
+        final K comparableKey = this.getComparableKey(key);
+        return Objects.isNull(comparableKey) ? null : this.findReferences(comparableKey);
+    }
+
+    /**
+     * Get the references of a key, sorted key maps throw instead of finding nothing for keys of another type
+     */
+    private @Nullable References<K, V> findReferences(final K key) {
+        try {
+            return this.keyToReferencesMap.get(key);
+        } catch (final ClassCastException e) {
+            return null; // keys of a different type are never indexed
+        }
+    }
+
+    /**
+     * Get the references of a key for modification, copying the key map and the references first if they are shared
+     * with a copy of this index
+     */
+    private @Nullable References<K, V> ownReferences(final K key) {
+        if (this.shared) {
+            this.keyToReferencesMap = this.keyToReferencesMap instanceof ConcurrentSkipListMap
+                ? new ConcurrentSkipListMap<>((ConcurrentSkipListMap<K, References<K, V>>) this.keyToReferencesMap)
+                : new ConcurrentHashMap<>(this.keyToReferencesMap);
+            this.shared = false;
+        }
+
+        final References<K, V> references = this.keyToReferencesMap.get(key);
+
+        if (Objects.isNull(references) || references.isOwnedBy(this.resolver)) {
+            return references;
+        }
+
+        final References<K, V> referencesCopy = references.copy(this.resolver);
+        this.keyToReferencesMap.put(key, referencesCopy);
+        return referencesCopy;
+    }
+
+    private @NotNull References<K, V> ownOrCreateReferences(final K key) {
+        final References<K, V> references = this.ownReferences(key);
+
+        if (Objects.nonNull(references)) {
+            return references;
+        }
+
+        if (Objects.nonNull(this.ngramIndex)) {
+            this.ngramIndex.add(key);
+        }
+
+        final References<K, V> createdReferences = new References<>(key, this.resolver, this.reducer);
+        this.keyToReferencesMap.put(key, createdReferences);
+        return createdReferences;
+    }
+
+    /**
+     * Collect the references of every key matching the operator
+     */
+    private @NotNull Collection<References<K, V>> getMatches(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        switch (operator) {
+            case CONTAINS:
+                return this.getContainingMatches(key);
+            case GREATER_THAN:
+            case LESS_THAN:
+            case BETWEEN:
+            case PREFIX:
+                return this.getRangeMatches(operator, key, upperKey);
+            default:
+                return this.getMatches(key);
+        }
+    }
+
+    private @NotNull Collection<References<K, V>> getMatches(final Object key) {
+        final K comparableKey = this.getComparableKey(key);
+        final References<K, V> references = Objects.isNull(comparableKey) ? null : this.findReferences(comparableKey);
+
+        if (Objects.isNull(references)) {
+            return Collections.emptyList();
+        }
+
+        return Collections.singletonList(references);
+    }
+
+    private @NotNull Collection<References<K, V>> getContainingMatches(final Object key) {
+        if (Objects.isNull(this.ngramIndex)) {
+            return this.getMatches(key);
+        }
+
+        final K fragment = this.getComparableKey(key);
+
+        if (!(fragment instanceof String)) {
+            return Collections.emptyList();
+        }
+
+        final List<References<K, V>> matches = new ArrayList<>();
+
+        for (final K matchingKey : this.ngramIndex.find((String) fragment, this.keyToReferencesMap.keySet())) {
+            final References<K, V> references = this.keyToReferencesMap.get(matchingKey);
+
+            if (Objects.nonNull(references)) {
+                matches.add(references);
+            }
+        }
+
+        return matches;
+    }
+
+    private @NotNull Collection<References<K, V>> getRangeMatches(final IndexOperator operator, final Object key, @Nullable final Object upperKey) {
+        final K from = this.getComparableKey(key);
+        final K to = operator == IndexOperator.BETWEEN ? this.getComparableKey(upperKey) : null;
+
+        if (Objects.isNull(from) || (operator == IndexOperator.BETWEEN && Objects.isNull(to))) {
+            return Collections.emptyList();
+        }
+
+        if (this.keyToReferencesMap instanceof NavigableMap) {
+            return this.getRangeMatches(operator, (NavigableMap<K, References<K, V>>) this.keyToReferencesMap, from, to);
+        }
+
+        final List<References<K, V>> matches = new ArrayList<>();
+
+        for (final Entry<K, References<K, V>> entry : this.keyToReferencesMap.entrySet()) {
+            if (this.isInRange(operator, entry.getKey(), from, to)) {
+                matches.add(entry.getValue());
+            }
+        }
+
+        return matches;
+    }
+
+    private @NotNull Collection<References<K, V>> getRangeMatches(final IndexOperator operator, final NavigableMap<K, References<K, V>> map, final K from, @Nullable final K to) {
+        if (!this.isComparable(map, from) || (Objects.nonNull(to) && !this.isComparable(map, to))) {
+            return Collections.emptyList(); // range views would throw once iterated
+        }
+
+        switch (operator) {
+            case GREATER_THAN:
+                return map.tailMap(from, false).values();
+            case LESS_THAN:
+                return map.headMap(from, false).values();
+            case BETWEEN:
+                if (this.compare(map.comparator(), from, to) > 0) {
+                    return Collections.emptyList();
+                }
+
+                return map.subMap(from, true, to, true).values();
+            default:
+                if (!(from instanceof String)) {
+                    return Collections.emptyList();
+                }
+
+                return this.getPrefixMatches(Objects.isNull(map.comparator()) ? map.tailMap(from, true) : map, (String) from);
+        }
+    }
+
+    /**
+     * Check if a key can be compared with the keys of a sorted map, which all have the same type
+     */
+    private boolean isComparable(final NavigableMap<K, References<K, V>> map, final K key) {
+        final Entry<K, References<K, V>> first = map.firstEntry();
+
+        if (Objects.isNull(first)) {
+            return false;
+        }
+
+        try {
+            this.compare(map.comparator(), key, first.getKey());
+            return true;
+        } catch (final ClassCastException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Collect references of keys starting with the prefix. Keys are walked in order and the walk ends at the first key
+     * without the prefix, which is only correct for maps ordered by the natural String order.
+     */
+    private @NotNull Collection<References<K, V>> getPrefixMatches(final NavigableMap<K, References<K, V>> map, final String prefix) {
+        final List<References<K, V>> matches = new ArrayList<>();
+        final boolean ordered = Objects.isNull(map.comparator());
+
+        for (final Entry<K, References<K, V>> entry : map.entrySet()) {
+            if (entry.getKey() instanceof String && ((String) entry.getKey()).startsWith(prefix)) {
+                matches.add(entry.getValue());
+            } else if (ordered) {
+                break;
+            }
+        }
+
+        return matches;
     }
 
-    public ReferenceIndex<K, V> copy() {
-        final Map<K, References<K, V>> keyToReferencesMapCopy = this.keyToReferencesMap.entrySet()
-            .stream()
-            .collect(Collectors.toMap(Entry::getKey, entry -> entry.getValue().copy()));
+    private boolean isInRange(final IndexOperator operator, final K key, final K from, @Nullable final K to) {
+        if (operator == IndexOperator.PREFIX) {
+            return key instanceof String && from instanceof String && ((String) key).startsWith((String) from);
+        }
+
+        try {
+            switch (operator) {
+                case GREATER_THAN:
+                    return this.compare(null, key, from) > 0;
+                case LESS_THAN:
+                    return this.compare(null, key, from) < 0;
+                default:
+                    return this.compare(null, key, from) >= 0 && this.compare(null, key, to) <= 0;
+            }
+        } catch (final ClassCastException e) {
+            return false; // keys of a different type are never part of a range
+        }
+    }
 
-        final Map<Reference<V>, Set<K>> referenceToKeysMapCopy = new HashMap<>(this.referenceToKeysMap);
+    @SuppressWarnings("unchecked")
+    private int compare(@Nullable final Comparator<? super K> comparator, final K key1, final K key2) {
+        if (Objects.nonNull(comparator)) {
+            return comparator.compare(key1, key2);
+        }
 
-        return new ReferenceIndex<>(this.name, this.keyMapper, this.reducer, this.comparisonPolicy, keyToReferencesMapCopy, referenceToKeysMapCopy);
+        return ((Comparable<Object>) key1).compareTo(key2);
     }
 
     private Set<K> generateKeys(final Reference<V> reference) throws IndexCreationException {
@@ -3,23 +3,32 @@ package net.tridentgames.membase.index;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class ReferenceIndexManager<V> extends IndexManager<V> {
-    private ReferenceIndexManager(final Collection<ReferenceIndex<?, V>> indexes) {
-        super(indexes);
+    private ReferenceIndexManager(final Collection<AbstractIndex<V>> indexes, @Nullable final IndexExecutor indexExecutor) {
+        super(indexes, indexExecutor);
     }
 
     public ReferenceIndexManager() {
-        this(Collections.emptyList());
+        this(Collections.emptyList(), null);
+    }
+
+    /**
+     * @param indexExecutor executor indexing large batches in parallel
+     */
+    public ReferenceIndexManager(@NotNull final IndexExecutor indexExecutor) {
+        this(Collections.emptyList(), indexExecutor);
     }
 
     @Override
-    protected IndexManager<V> createCopy(final Set<ReferenceIndex<?, V>> indexes) {
-        return new ReferenceIndexManager<>(indexes);
+    protected IndexManager<V> createCopy(final Set<AbstractIndex<V>> indexes) {
+        return new ReferenceIndexManager<>(indexes, this.getIndexExecutor());
     }
 
     @Override
-    protected <K> ReferenceIndex<K, V> createIndex(final String indexName, final IndexDefinition<K, V> indexDefinition) {
-        return new ReferenceIndex<>(indexName, indexDefinition.getKeyMapper(), indexDefinition.getReducer(), indexDefinition.getComparisonPolicy());
+    protected <K> AbstractIndex<V> createIndex(final String indexName, final IndexDefinition<K, V> indexDefinition) {
+        return indexDefinition.createIndex(indexName);
     }
 }
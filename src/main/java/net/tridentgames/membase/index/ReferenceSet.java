@@ -0,0 +1,71 @@
+package net.tridentgames.membase.index;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.function.IntFunction;
+
+import net.tridentgames.membase.index.primitive.RoaringBitmap;
+import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Unmodifiable view of a bitmap of reference ids as a set of references, iterated in id order, which is the order the
+ * references were added in
+ *
+ * @param <V> value type
+ */
+class ReferenceSet<V> extends AbstractSet<Reference<V>> {
+    private final RoaringBitmap ids;
+    private final IntFunction<Reference<V>> resolver;
+
+    ReferenceSet(final RoaringBitmap ids, final IntFunction<Reference<V>> resolver) {
+        this.ids = ids;
+        this.resolver = resolver;
+    }
+
+    @NotNull RoaringBitmap getIds() {
+        return this.ids;
+    }
+
+    @NotNull IntFunction<Reference<V>> getResolver() {
+        return this.resolver;
+    }
+
+    @Override
+    public @NotNull Iterator<Reference<V>> iterator() {
+        final PrimitiveIterator.OfInt iterator = this.ids.iterator();
+
+        return new Iterator<Reference<V>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Reference<V> next() {
+                return ReferenceSet.this.resolver.apply(iterator.nextInt());
+            }
+        };
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        if (!(obj instanceof Reference)) {
+            return false;
+        }
+
+        final int id = ((Reference<?>) obj).getId();
+        return this.ids.contains(id) && this.resolver.apply(id) == obj;
+    }
+
+    @Override
+    public int size() {
+        return this.ids.getCardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.ids.isEmpty();
+    }
+}
@@ -1,71 +1,303 @@
 package net.tridentgames.membase.index;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
+import net.tridentgames.membase.index.primitive.RoaringBitmap;
+import net.tridentgames.membase.index.reducer.IncrementalReducer;
 import net.tridentgames.membase.index.reducer.Reducer;
+import net.tridentgames.membase.index.reducer.ReducerState;
 import net.tridentgames.membase.reference.Reference;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 
+/**
+ * References matching a single key. Membership is kept as a bitmap of reference ids, which are resolved back to
+ * references through the owning index. Copies of an index share their references until either index modifies them,
+ * so reads resolve ids through the index reading, which need not be the owner.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
 public class References<K, V> {
     private final K key;
     private final Reducer<K, V> reducer;
-    private final Set<Reference<V>> references;
+    private final RoaringBitmap ids;
+    private final ReferenceSet<V> references;
+    private final @Nullable ReducerState<V> reducerState;
     private Set<Reference<V>> reducedReferences;
 
-    private References(@NotNull K key, @NotNull Set<Reference<V>> references, @NotNull Collection<Reference<V>> reducedReferences, @Nullable Reducer<K, V> reducer) {
+    private References(@NotNull K key, @NotNull RoaringBitmap ids, @NotNull IntFunction<Reference<V>> resolver, @NotNull Collection<Reference<V>> reducedReferences, @Nullable Reducer<K, V> reducer, @Nullable ReducerState<V> reducerState) {
         this.key = key;
-        this.references = new LinkedHashSet<>(references);
-        this.reducedReferences = new LinkedHashSet<>(reducedReferences);
+        this.ids = ids;
+        this.references = new ReferenceSet<>(ids, resolver);
         this.reducer = reducer;
+        this.reducerState = reducerState;
+
+        if (Objects.isNull(reducer)) {
+            this.reducedReferences = this.references; // nothing is ever reduced, share the set
+        } else if (Objects.nonNull(reducerState)) {
+            this.reducedReferences = Collections.emptySet(); // the reducer state tracks reduced references
+        } else {
+            this.reducedReferences = new LinkedHashSet<>(reducedReferences);
+        }
     }
 
-    public References(@NotNull K key, @NotNull Reference<V> reference, @Nullable Reducer<K, V> reducer) {
-        this(key, Collections.singleton(reference), Collections.emptySet(), reducer);
-        this.reducedReferences.add(reference);
-        this.reducedReferences = this.reduce(this.reducedReferences);
+    /**
+     * Create an empty set of references
+     *
+     * @param key      key matched by the references
+     * @param resolver resolves reference ids to the references held by the owning index
+     * @param reducer  reducer applied to the references, or null
+     */
+    public References(@NotNull K key, @NotNull IntFunction<Reference<V>> resolver, @Nullable Reducer<K, V> reducer) {
+        this(key, new RoaringBitmap(), resolver, Collections.emptySet(), reducer, createState(key, reducer));
+    }
+
+    public References(@NotNull K key, @NotNull IntFunction<Reference<V>> resolver, @NotNull Reference<V> reference, @Nullable Reducer<K, V> reducer) {
+        this(key, resolver, reducer);
+        this.add(reference);
     }
 
     public void add(@NotNull Reference<V> reference) {
-        this.references.add(reference);
+        final boolean added = this.ids.add(reference.getId());
+
+        if (Objects.nonNull(this.reducerState)) {
+            if (!added) {
+                this.reducerState.remove(reference);
+            }
+
+            this.reducerState.add(reference);
+            return;
+        }
+
+        if (Objects.isNull(this.reducer)) {
+            return;
+        }
+
         this.reducedReferences.add(reference);
         this.reducedReferences = this.reduce(this.reducedReferences);
     }
 
-    public void remove(@NotNull Reference<V> reference) {
-        this.references.remove(reference);
+    /**
+     * Add a reference that is new to these references without reducing, see {@link #reduceLoaded()}
+     *
+     * @param reference reference
+     */
+    void load(@NotNull Reference<V> reference) {
+        if (!this.ids.add(reference.getId())) {
+            return;
+        }
+
+        if (Objects.nonNull(this.reducerState)) {
+            this.reducerState.add(reference);
+        }
+    }
+
+    /**
+     * Reduce all references once after they were loaded
+     */
+    void reduceLoaded() {
+        if (Objects.nonNull(this.reducer) && Objects.isNull(this.reducerState)) {
+            this.reducedReferences = this.reduce(this.references);
+        }
+    }
+
+    /**
+     * Reduce again after the referenced item changed without leaving these references
+     *
+     * @param reference reference held by these references
+     */
+    void update(@NotNull Reference<V> reference) {
+        if (Objects.nonNull(this.reducerState)) {
+            this.reducerState.remove(reference);
+            this.reducerState.add(reference);
+            return;
+        }
+
+        if (Objects.isNull(this.reducer)) {
+            return;
+        }
 
         if (this.reducedReferences.contains(reference)) {
+            this.reducedReferences = this.reduce(this.references); // the reference may no longer be kept, re-reduce all
+        } else {
+            this.reducedReferences.add(reference);
+            this.reducedReferences = this.reduce(this.reducedReferences);
+        }
+    }
+
+    public void remove(@NotNull Reference<V> reference) {
+        if (!this.ids.remove(reference.getId())) {
+            return;
+        }
+
+        if (Objects.nonNull(this.reducerState)) {
+            this.reducerState.remove(reference);
+            return;
+        }
+
+        if (Objects.nonNull(this.reducer) && this.reducedReferences.contains(reference)) {
             this.reducedReferences = this.reduce(this.references); // on remove, re-reduce all references associated with this key
         }
     }
 
     public @NotNull @Unmodifiable Set<Reference<V>> getAllReferences() {
+        if (Objects.nonNull(this.reducerState)) {
+            return this.reducerState.getReducedReferences();
+        }
+
+        if (Objects.isNull(this.reducer)) {
+            return this.references; // the view is unmodifiable
+        }
+
         return Collections.unmodifiableSet(this.reducedReferences);
     }
 
+    /**
+     * Get all references, resolving ids through the given resolver
+     *
+     * @param resolver resolves reference ids to the references held by the index reading
+     * @return references
+     */
+    @NotNull @Unmodifiable Set<Reference<V>> getAllReferences(@NotNull IntFunction<Reference<V>> resolver) {
+        if (Objects.isNull(this.reducer) && !this.isOwnedBy(resolver)) {
+            return new ReferenceSet<>(this.ids, resolver);
+        }
+
+        return this.getAllReferences();
+    }
+
     public @NotNull List<V> getAll() {
-        return this.reducedReferences.stream().map(Reference::get).collect(Collectors.toList());
+        return this.getAll(this.references.getResolver());
+    }
+
+    @NotNull List<V> getAll(@NotNull IntFunction<Reference<V>> resolver) {
+        final List<V> results = new ArrayList<>(this.size());
+        this.addTo(results, resolver);
+        return results;
+    }
+
+    /**
+     * Add the referenced items to a collection
+     *
+     * @param results collection to add to
+     */
+    public void addTo(@NotNull Collection<? super V> results) {
+        this.addTo(results, this.references.getResolver());
+    }
+
+    void addTo(@NotNull Collection<? super V> results, @NotNull IntFunction<Reference<V>> resolver) {
+        if (Objects.isNull(this.reducer)) {
+            final PrimitiveIterator.OfInt iterator = this.ids.iterator();
+
+            while (iterator.hasNext()) {
+                results.add(resolver.apply(iterator.nextInt()).get());
+            }
+
+            return;
+        }
+
+        for (final Reference<V> reference : this.getAllReferences()) {
+            results.add(reference.get());
+        }
+    }
+
+    public void forEach(@NotNull Consumer<? super V> action) {
+        this.forEach(action, this.references.getResolver());
+    }
+
+    void forEach(@NotNull Consumer<? super V> action, @NotNull IntFunction<Reference<V>> resolver) {
+        if (Objects.isNull(this.reducer)) {
+            final PrimitiveIterator.OfInt iterator = this.ids.iterator();
+
+            while (iterator.hasNext()) {
+                action.accept(resolver.apply(iterator.nextInt()).get());
+            }
+
+            return;
+        }
+
+        for (final Reference<V> reference : this.getAllReferences()) {
+            action.accept(reference.get());
+        }
+    }
+
+    /**
+     * Get the number of referenced items, after reducing
+     *
+     * @return number of items
+     */
+    public int size() {
+        return Objects.isNull(this.reducer) ? this.ids.getCardinality() : this.getAllReferences().size();
     }
 
     public boolean isEmpty() {
-        return this.references.isEmpty();
+        return this.ids.isEmpty();
     }
 
     public Optional<V> findFirst() {
-        return this.reducedReferences.stream().map(Reference::get).findFirst();
+        return Optional.ofNullable(this.getFirst());
+    }
+
+    /**
+     * Get the first referenced item, after reducing
+     *
+     * @return first item, or null if there is none
+     */
+    public @Nullable V getFirst() {
+        return this.getFirst(this.references.getResolver());
+    }
+
+    @Nullable V getFirst(@NotNull IntFunction<Reference<V>> resolver) {
+        if (Objects.isNull(this.reducer)) {
+            return this.ids.isEmpty() ? null : resolver.apply(this.ids.first()).get();
+        }
+
+        final Set<Reference<V>> references = this.getAllReferences();
+        return references.isEmpty() ? null : references.iterator().next().get();
+    }
+
+    /**
+     * Get the ids of all references when no reducer is applied
+     *
+     * @return ids, or null if the references are reduced and must be read through {@link #getAllReferences()}
+     */
+    public @Nullable RoaringBitmap getIds() {
+        return Objects.isNull(this.reducer) ? this.ids : null;
+    }
+
+    /**
+     * Check if these references belong to the index resolving ids through the given resolver. Other indexes only share
+     * them with the owner and must copy them before modifying them.
+     *
+     * @param resolver resolver of an index
+     * @return true if owned by the index
+     */
+    boolean isOwnedBy(@NotNull IntFunction<Reference<V>> resolver) {
+        return this.references.getResolver() == resolver;
     }
 
-    public References<K, V> copy() {
-        return new References<>(this.key, this.references, this.reducedReferences, this.reducer);
+    /**
+     * Create an independent copy of these references
+     *
+     * @param resolver resolves reference ids to the references held by the index owning the copy
+     * @return copy
+     */
+    public References<K, V> copy(@NotNull IntFunction<Reference<V>> resolver) {
+        final ReducerState<V> reducerStateCopy = Objects.isNull(this.reducerState) ? null : this.reducerState.copy();
+        return new References<>(this.key, this.ids.copy(), resolver, this.reducedReferences, this.reducer, reducerStateCopy);
     }
 
     private @NotNull Set<Reference<V>> reduce(final Set<Reference<V>> references) {
@@ -81,4 +313,12 @@ public class References<K, V> {
             .map(Element::getReference)
             .collect(Collectors.toCollection(LinkedHashSet::new));
     }
+
+    private static @Nullable <K, V> ReducerState<V> createState(final K key, @Nullable final Reducer<K, V> reducer) {
+        if (reducer instanceof IncrementalReducer) {
+            return ((IncrementalReducer<K, V>) reducer).createState(key);
+        }
+
+        return null;
+    }
 }
@@ -1,10 +1,14 @@
 package net.tridentgames.membase.index;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
 
 public class SynchronizedIndex<T> implements Index<T> {
     private final Index<T> index;
@@ -37,6 +41,28 @@ public class SynchronizedIndex<T> implements Index<T> {
         return result;
     }
 
+    @Override
+    public @NotNull Optional<T> findFirstInt(final int key) {
+        final Optional<T> result;
+
+        synchronized (this.mutex) {
+            result = this.index.findFirstInt(key);
+        }
+
+        return result;
+    }
+
+    @Override
+    public @NotNull Optional<T> findFirstLong(final long key) {
+        final Optional<T> result;
+
+        synchronized (this.mutex) {
+            result = this.index.findFirstLong(key);
+        }
+
+        return result;
+    }
+
     @Override
     public List<T> get(final Object key) {
         final List<T> results;
@@ -48,6 +74,79 @@ public class SynchronizedIndex<T> implements Index<T> {
         return results;
     }
 
+    @Override
+    public List<T> getInt(final int key) {
+        final List<T> results;
+
+        synchronized (this.mutex) {
+            results = this.index.getInt(key);
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<T> getLong(final long key) {
+        final List<T> results;
+
+        synchronized (this.mutex) {
+            results = this.index.getLong(key);
+        }
+
+        return results;
+    }
+
+    @Override
+    public int get(final Object key, final Collection<? super T> results) {
+        final int count;
+
+        synchronized (this.mutex) {
+            count = this.index.get(key, results);
+        }
+
+        return count;
+    }
+
+    @Override
+    public void forEach(final Object key, final Consumer<? super T> action) {
+        synchronized (this.mutex) {
+            this.index.forEach(key, action);
+        }
+    }
+
+    @Override
+    public int count(final Object key) {
+        final int count;
+
+        synchronized (this.mutex) {
+            count = this.index.count(key);
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean contains(final Object key) {
+        final boolean result;
+
+        synchronized (this.mutex) {
+            result = this.index.contains(key);
+        }
+
+        return result;
+    }
+
+    @Override
+    public @NotNull @Unmodifiable Set<Object> keys() {
+        final Set<Object> keys;
+
+        synchronized (this.mutex) {
+            keys = this.index.keys();
+        }
+
+        return keys;
+    }
+
     @Override
     public String getName() {
         return this.index.getName();
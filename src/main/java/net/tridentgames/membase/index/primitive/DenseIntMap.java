@@ -0,0 +1,153 @@
+package net.tridentgames.membase.index.primitive;
+
+import java.util.Arrays;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Map from non-negative int keys, such as reference ids, to non-null values. Values are held in chunks of an array
+ * indexed by key, so lookups are a bounds check and two loads. Chunks are dropped once their last value is removed, so
+ * keys that only grow keep the memory of the live ones. Copies share their chunks until either map writes to one,
+ * which copies that chunk only. Reads may run concurrently with each other, writes must be guarded by
+ * the owner.
+ *
+ * @param <T> value type
+ */
+public class DenseIntMap<T> {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final Object[][] EMPTY = new Object[0][];
+
+    private Object[][] chunks;
+    private int[] chunkSizes;
+    private long[] ownedChunks; // chunks written since the last copy, all others may be shared
+    private boolean sharedChunks; // the chunk and chunk size arrays are shared with a copy
+    private int size;
+
+    private DenseIntMap(final Object[][] chunks, final int[] chunkSizes, final int size) {
+        this.chunks = chunks;
+        this.chunkSizes = chunkSizes;
+        this.ownedChunks = new long[0];
+        this.sharedChunks = chunks.length > 0;
+        this.size = size;
+    }
+
+    public DenseIntMap() {
+        this(EMPTY, new int[0], 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable T get(final int key) {
+        final Object[][] chunks = this.chunks;
+        final int index = key >>> CHUNK_SHIFT;
+
+        if (index >= chunks.length) {
+            return null;
+        }
+
+        final Object[] chunk = chunks[index];
+        return Objects.isNull(chunk) ? null : (T) chunk[key & CHUNK_MASK];
+    }
+
+    /**
+     * Associate a value with a key
+     *
+     * @param key   non-negative key
+     * @param value value, never null
+     * @return previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T put(final int key, @NotNull final T value) {
+        final Object[] chunk = this.ownChunk(key >>> CHUNK_SHIFT);
+        final T previous = (T) chunk[key & CHUNK_MASK];
+        chunk[key & CHUNK_MASK] = value;
+
+        if (Objects.isNull(previous)) {
+            this.chunkSizes[key >>> CHUNK_SHIFT]++;
+            this.size++;
+        }
+
+        return previous;
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable T remove(final int key) {
+        final int index = key >>> CHUNK_SHIFT;
+
+        if (Objects.isNull(this.get(key))) {
+            return null;
+        }
+
+        final Object[] chunk = this.ownChunk(index);
+        final T previous = (T) chunk[key & CHUNK_MASK];
+        chunk[key & CHUNK_MASK] = null;
+
+        if (--this.chunkSizes[index] == 0) {
+            this.chunks[index] = null;
+        }
+
+        this.size--;
+        return previous;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.chunks = EMPTY;
+        this.chunkSizes = new int[0];
+        this.ownedChunks = new long[0];
+        this.sharedChunks = false;
+        this.size = 0;
+    }
+
+    /**
+     * Create a copy sharing all chunks with this map, a chunk is copied by the first of both maps writing to it
+     *
+     * @return copy
+     */
+    public @NotNull DenseIntMap<T> copy() {
+        this.ownedChunks = new long[0];
+        this.sharedChunks = this.chunks.length > 0;
+        return new DenseIntMap<>(this.chunks, this.chunkSizes, this.size);
+    }
+
+    /**
+     * Get a chunk for writing, creating it or copying it first if it may be shared with a copy
+     */
+    private Object[] ownChunk(final int index) {
+        if (index >= this.chunks.length) {
+            final int length = Math.max(index + 1, this.chunks.length + (this.chunks.length >> 1));
+            this.chunks = Arrays.copyOf(this.chunks, length);
+            this.chunkSizes = Arrays.copyOf(this.chunkSizes, length);
+            this.sharedChunks = false;
+        } else if (this.sharedChunks) {
+            this.chunks = this.chunks.clone();
+            this.chunkSizes = this.chunkSizes.clone();
+            this.sharedChunks = false;
+        }
+
+        final Object[] chunk = this.chunks[index];
+
+        if (Objects.nonNull(chunk) && this.isOwned(index)) {
+            return chunk;
+        }
+
+        final Object[] ownedChunk = Objects.isNull(chunk) ? new Object[CHUNK_SIZE] : chunk.clone();
+        this.chunks[index] = ownedChunk;
+
+        if (index >> 6 >= this.ownedChunks.length) {
+            this.ownedChunks = Arrays.copyOf(this.ownedChunks, Math.max((index >> 6) + 1, this.ownedChunks.length * 2));
+        }
+
+        this.ownedChunks[index >> 6] |= 1L << index;
+        return ownedChunk;
+    }
+
+    private boolean isOwned(final int index) {
+        return index >> 6 < this.ownedChunks.length && (this.ownedChunks[index >> 6] & 1L << index) != 0;
+    }
+}
@@ -0,0 +1,199 @@
+package net.tridentgames.membase.index.primitive;
+
+import java.util.Objects;
+import java.util.function.ObjLongConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Open-addressing hash map from primitive long keys to non-null values, keys are never boxed. Slots are probed
+ * linearly and removals shift following entries back, so no tombstones are left behind. Copies share their tables
+ * until either map is written to. Reads may run concurrently with each other, writes must be guarded by the owner.
+ *
+ * @param <T> value type
+ */
+public class LongObjectMap<T> {
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private boolean shared; // the tables are shared with a copy and copied before the next write
+
+    private LongObjectMap(final long[] keys, final Object[] values, final int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    public LongObjectMap() {
+        this(new long[MIN_CAPACITY], new Object[MIN_CAPACITY], 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable T get(final long key) {
+        final int mask = this.values.length - 1;
+
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            final Object value = this.values[slot];
+
+            if (Objects.isNull(value) || this.keys[slot] == key) {
+                return (T) value;
+            }
+        }
+    }
+
+    public boolean containsKey(final long key) {
+        return Objects.nonNull(this.get(key));
+    }
+
+    /**
+     * Associate a value with a key
+     *
+     * @param key   key
+     * @param value value, never null
+     * @return previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T put(final long key, @NotNull T value) {
+        this.unshare();
+
+        final int mask = this.values.length - 1;
+        int slot = slot(key, mask);
+
+        while (Objects.nonNull(this.values[slot])) {
+            if (this.keys[slot] == key) {
+                final T previous = (T) this.values[slot];
+                this.values[slot] = value;
+                return previous;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+
+        if (++this.size * 3 > this.values.length * 2) {
+            this.resize(this.values.length * 2);
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public @Nullable T remove(final long key) {
+        final int mask = this.values.length - 1;
+        int slot = slot(key, mask);
+
+        while (Objects.nonNull(this.values[slot])) {
+            if (this.keys[slot] == key) {
+                final T previous = (T) this.values[slot];
+                this.unshare();
+                this.shiftBack(slot, mask);
+                this.size--;
+                return previous;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final ObjLongConsumer<T> consumer) {
+        for (int slot = 0; slot < this.values.length; slot++) {
+            if (Objects.nonNull(this.values[slot])) {
+                consumer.accept((T) this.values[slot], this.keys[slot]);
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        this.keys = new long[MIN_CAPACITY];
+        this.values = new Object[MIN_CAPACITY];
+        this.size = 0;
+        this.shared = false;
+    }
+
+    /**
+     * Create a copy sharing the tables of this map, which are copied by the first of both maps written to
+     *
+     * @return copy
+     */
+    public @NotNull LongObjectMap<T> copy() {
+        final LongObjectMap<T> copy = new LongObjectMap<>(this.keys, this.values, this.size);
+        copy.shared = true;
+        this.shared = true;
+        return copy;
+    }
+
+    private void unshare() {
+        if (this.shared) {
+            this.keys = this.keys.clone();
+            this.values = this.values.clone();
+            this.shared = false;
+        }
+    }
+
+    private void shiftBack(int gap, final int mask) {
+        int slot = gap;
+
+        while (true) {
+            slot = (slot + 1) & mask;
+
+            if (Objects.isNull(this.values[slot])) {
+                break;
+            }
+
+            final int home = slot(this.keys[slot], mask);
+
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) { // the gap lies between the entry's home and its slot
+                this.keys[gap] = this.keys[slot];
+                this.values[gap] = this.values[slot];
+                gap = slot;
+            }
+        }
+
+        this.values[gap] = null;
+    }
+
+    private void resize(final int capacity) {
+        final long[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        final int mask = capacity - 1;
+
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.shared = false;
+
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            if (Objects.isNull(oldValues[oldSlot])) {
+                continue;
+            }
+
+            int slot = slot(oldKeys[oldSlot], mask);
+
+            while (Objects.nonNull(this.values[slot])) {
+                slot = (slot + 1) & mask;
+            }
+
+            this.keys[slot] = oldKeys[oldSlot];
+            this.values[slot] = oldValues[oldSlot];
+        }
+    }
+
+    static int slot(final long key, final int mask) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,177 @@
+package net.tridentgames.membase.index.primitive;
+
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Open-addressing hash map from non-null keys to primitive long values, values are never boxed. Slots are probed
+ * linearly and removals shift following entries back, so no tombstones are left behind. Copies share their tables
+ * until either map is written to. Reads may run concurrently with each other, writes must be guarded by the owner.
+ *
+ * @param <K> key type
+ */
+public class ObjectLongMap<K> {
+    private static final int MIN_CAPACITY = 16;
+
+    private Object[] keys;
+    private long[] values;
+    private int size;
+    private boolean shared; // the tables are shared with a copy and copied before the next write
+
+    private ObjectLongMap(final Object[] keys, final long[] values, final int size) {
+        this.keys = keys;
+        this.values = values;
+        this.size = size;
+    }
+
+    public ObjectLongMap() {
+        this(new Object[MIN_CAPACITY], new long[MIN_CAPACITY], 0);
+    }
+
+    /**
+     * Get the value of a key
+     *
+     * @param key          key
+     * @param defaultValue value returned when the key is absent
+     * @return value or defaultValue
+     */
+    public long getOrDefault(@NotNull Object key, final long defaultValue) {
+        final int slot = this.find(key);
+        return slot < 0 ? defaultValue : this.values[slot];
+    }
+
+    public boolean containsKey(@NotNull Object key) {
+        return this.find(key) >= 0;
+    }
+
+    public void put(@NotNull K key, final long value) {
+        this.unshare();
+
+        final int mask = this.keys.length - 1;
+        int slot = slot(key, mask);
+
+        while (Objects.nonNull(this.keys[slot])) {
+            if (this.keys[slot].equals(key)) {
+                this.values[slot] = value;
+                return;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+
+        if (++this.size * 3 > this.keys.length * 2) {
+            this.resize(this.keys.length * 2);
+        }
+    }
+
+    public boolean remove(@NotNull Object key) {
+        final int slot = this.find(key);
+
+        if (slot < 0) {
+            return false;
+        }
+
+        this.unshare();
+        this.shiftBack(slot, this.keys.length - 1);
+        this.size--;
+        return true;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public void clear() {
+        this.keys = new Object[MIN_CAPACITY];
+        this.values = new long[MIN_CAPACITY];
+        this.size = 0;
+        this.shared = false;
+    }
+
+    /**
+     * Create a copy sharing the tables of this map, which are copied by the first of both maps written to
+     *
+     * @return copy
+     */
+    public @NotNull ObjectLongMap<K> copy() {
+        final ObjectLongMap<K> copy = new ObjectLongMap<>(this.keys, this.values, this.size);
+        copy.shared = true;
+        this.shared = true;
+        return copy;
+    }
+
+    private void unshare() {
+        if (this.shared) {
+            this.keys = this.keys.clone();
+            this.values = this.values.clone();
+            this.shared = false;
+        }
+    }
+
+    private int find(final Object key) {
+        final Object[] keys = this.keys;
+        final int mask = keys.length - 1;
+
+        for (int slot = slot(key, mask); Objects.nonNull(keys[slot]); slot = (slot + 1) & mask) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    private void shiftBack(int gap, final int mask) {
+        int slot = gap;
+
+        while (true) {
+            slot = (slot + 1) & mask;
+
+            if (Objects.isNull(this.keys[slot])) {
+                break;
+            }
+
+            final int home = slot(this.keys[slot], mask);
+
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) { // the gap lies between the entry's home and its slot
+                this.keys[gap] = this.keys[slot];
+                this.values[gap] = this.values[slot];
+                gap = slot;
+            }
+        }
+
+        this.keys[gap] = null;
+    }
+
+    private void resize(final int capacity) {
+        final Object[] oldKeys = this.keys;
+        final long[] oldValues = this.values;
+        final int mask = capacity - 1;
+
+        this.keys = new Object[capacity];
+        this.values = new long[capacity];
+        this.shared = false;
+
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (Objects.isNull(oldKeys[oldSlot])) {
+                continue;
+            }
+
+            int slot = slot(oldKeys[oldSlot], mask);
+
+            while (Objects.nonNull(this.keys[slot])) {
+                slot = (slot + 1) & mask;
+            }
+
+            this.keys[slot] = oldKeys[oldSlot];
+            this.values[slot] = oldValues[oldSlot];
+        }
+    }
+
+    private static int slot(final Object key, final int mask) {
+        return LongObjectMap.slot(key.hashCode(), mask);
+    }
+}
@@ -0,0 +1,602 @@
+package net.tridentgames.membase.index.primitive;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Compressed set of non-negative ints in the style of roaring bitmaps. Values are split into chunks of 65536 by their
+ * high 16 bits, a sparse chunk keeps its low bits in a sorted char array and a dense chunk in a 8KB bitmap, so dense
+ * id ranges cost about a bit per value and AND/OR run a chunk at a time. Reads may run concurrently with each other,
+ * writes must be guarded by the owner.
+ */
+public class RoaringBitmap {
+    private static final int ARRAY_LIMIT = 4096; // an array of more values would outgrow a bitmap chunk
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    private RoaringBitmap(final char[] keys, final Container[] containers, final int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+
+    public RoaringBitmap() {
+        this(new char[1], new Container[1], 0); // most posting lists span a single chunk
+    }
+
+    public static @NotNull RoaringBitmap of(final int value) {
+        final RoaringBitmap bitmap = new RoaringBitmap();
+        bitmap.add(value);
+        return bitmap;
+    }
+
+    /**
+     * Add a value
+     *
+     * @param value non-negative value
+     * @return true if the value was not present
+     */
+    public boolean add(final int value) {
+        final char high = (char) (value >>> 16);
+        int index = this.find(high);
+
+        if (index < 0) {
+            index = -index - 1;
+            this.insert(index, high, new ArrayContainer(new char[1], 0));
+        }
+
+        final Container container = this.containers[index];
+        final int cardinality = container.cardinality;
+        this.containers[index] = container.add((char) value);
+        return this.containers[index].cardinality > cardinality;
+    }
+
+    /**
+     * Remove a value
+     *
+     * @param value value
+     * @return true if the value was present
+     */
+    public boolean remove(final int value) {
+        final int index = this.find((char) (value >>> 16));
+
+        if (index < 0) {
+            return false;
+        }
+
+        final Container container = this.containers[index];
+        final int cardinality = container.cardinality;
+        final Container result = container.remove((char) value);
+
+        if (result.cardinality == 0) {
+            this.delete(index);
+        } else {
+            this.containers[index] = result;
+        }
+
+        return result.cardinality < cardinality;
+    }
+
+    public boolean contains(final int value) {
+        final int index = this.find((char) (value >>> 16));
+        return index >= 0 && this.containers[index].contains((char) value);
+    }
+
+    public int getCardinality() {
+        int cardinality = 0;
+
+        for (int i = 0; i < this.size; i++) {
+            cardinality += this.containers[i].cardinality;
+        }
+
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Get the smallest value
+     *
+     * @return smallest value, or -1 if the bitmap is empty
+     */
+    public int first() {
+        if (this.size == 0) {
+            return -1;
+        }
+
+        return this.keys[0] << 16 | this.containers[0].first();
+    }
+
+    /**
+     * Intersect with another bitmap, neither bitmap is modified
+     *
+     * @param other bitmap to intersect with
+     * @return values present in both bitmaps
+     */
+    public @NotNull RoaringBitmap and(@NotNull final RoaringBitmap other) {
+        final int capacity = Math.max(1, Math.min(this.size, other.size));
+        final RoaringBitmap result = new RoaringBitmap(new char[capacity], new Container[capacity], 0);
+        int i = 0;
+        int j = 0;
+
+        while (i < this.size && j < other.size) {
+            if (this.keys[i] < other.keys[j]) {
+                i++;
+            } else if (this.keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                final Container container = this.containers[i].and(other.containers[j]);
+
+                if (container.cardinality > 0) {
+                    result.keys[result.size] = this.keys[i];
+                    result.containers[result.size++] = container;
+                }
+
+                i++;
+                j++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Unite with another bitmap, neither bitmap is modified
+     *
+     * @param other bitmap to unite with
+     * @return values present in either bitmap
+     */
+    public @NotNull RoaringBitmap or(@NotNull final RoaringBitmap other) {
+        return this.copy().orWith(other);
+    }
+
+    /**
+     * Add all values of another bitmap to this one
+     *
+     * @param other bitmap to unite with, not modified
+     * @return this bitmap
+     */
+    public @NotNull RoaringBitmap orWith(@NotNull final RoaringBitmap other) {
+        for (int j = 0; j < other.size; j++) {
+            final int index = this.find(other.keys[j]);
+
+            if (index < 0) {
+                this.insert(-index - 1, other.keys[j], other.containers[j].copy());
+            } else {
+                this.containers[index] = this.containers[index].orWith(other.containers[j]);
+            }
+        }
+
+        return this;
+    }
+
+    public void forEach(@NotNull final IntConsumer consumer) {
+        for (int i = 0; i < this.size; i++) {
+            this.containers[i].forEach(this.keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Iterate values in ascending order
+     *
+     * @return iterator
+     */
+    public @NotNull PrimitiveIterator.OfInt iterator() {
+        return new BitmapIterator();
+    }
+
+    public void clear() {
+        this.keys = new char[1];
+        this.containers = new Container[1];
+        this.size = 0;
+    }
+
+    public @NotNull RoaringBitmap copy() {
+        final Container[] containersCopy = new Container[Math.max(1, this.size)];
+
+        for (int i = 0; i < this.size; i++) {
+            containersCopy[i] = this.containers[i].copy();
+        }
+
+        return new RoaringBitmap(Arrays.copyOf(this.keys, containersCopy.length), containersCopy, this.size);
+    }
+
+    private int find(final char high) {
+        int low = 0;
+        int highIndex = this.size - 1;
+
+        while (low <= highIndex) {
+            final int middle = (low + highIndex) >>> 1;
+
+            if (this.keys[middle] < high) {
+                low = middle + 1;
+            } else if (this.keys[middle] > high) {
+                highIndex = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    private void insert(final int index, final char high, final Container container) {
+        if (this.size == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.containers = Arrays.copyOf(this.containers, this.size * 2);
+        }
+
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.size - index);
+        System.arraycopy(this.containers, index, this.containers, index + 1, this.size - index);
+        this.keys[index] = high;
+        this.containers[index] = container;
+        this.size++;
+    }
+
+    private void delete(final int index) {
+        System.arraycopy(this.keys, index + 1, this.keys, index, this.size - index - 1);
+        System.arraycopy(this.containers, index + 1, this.containers, index, this.size - index - 1);
+        this.containers[--this.size] = null;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        this.forEach(value -> builder.append(builder.length() > 1 ? "," : "").append(value));
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Low 16 bits of the values sharing the same high 16 bits. Operations return the container that holds the result,
+     * which is either this container or a new one of the other kind once the cardinality crosses the limits.
+     */
+    private abstract static class Container {
+        int cardinality;
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract Container and(Container other);
+
+        abstract Container orWith(Container other);
+
+        abstract Container copy();
+
+        abstract void forEach(int high, IntConsumer consumer);
+
+        abstract char first();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+
+        private ArrayContainer(final char[] values, final int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return Arrays.binarySearch(this.values, 0, this.cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(final char value) {
+            final int index = Arrays.binarySearch(this.values, 0, this.cardinality, value);
+
+            if (index >= 0) {
+                return this;
+            }
+
+            if (this.cardinality >= ARRAY_LIMIT) {
+                return this.toBitmap().add(value);
+            }
+
+            final int insertion = -index - 1;
+
+            if (this.cardinality == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.min(ARRAY_LIMIT, Math.max(4, this.cardinality * 2)));
+            }
+
+            System.arraycopy(this.values, insertion, this.values, insertion + 1, this.cardinality - insertion);
+            this.values[insertion] = value;
+            this.cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(final char value) {
+            final int index = Arrays.binarySearch(this.values, 0, this.cardinality, value);
+
+            if (index >= 0) {
+                System.arraycopy(this.values, index + 1, this.values, index, this.cardinality - index - 1);
+                this.cardinality--;
+            }
+
+            return this;
+        }
+
+        @Override
+        Container and(final Container other) {
+            final char[] result = new char[Math.min(this.cardinality, other.cardinality)];
+            int count = 0;
+
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer that = (ArrayContainer) other;
+                int i = 0;
+                int j = 0;
+
+                while (i < this.cardinality && j < that.cardinality) {
+                    if (this.values[i] < that.values[j]) {
+                        i++;
+                    } else if (this.values[i] > that.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = this.values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < this.cardinality; i++) {
+                    if (other.contains(this.values[i])) {
+                        result[count++] = this.values[i];
+                    }
+                }
+            }
+
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container orWith(final Container other) {
+            if (other instanceof BitmapContainer) {
+                return other.copy().orWith(this);
+            }
+
+            final ArrayContainer that = (ArrayContainer) other;
+
+            if (this.cardinality + that.cardinality > ARRAY_LIMIT) {
+                return this.toBitmap().orWith(that);
+            }
+
+            final char[] result = new char[this.cardinality + that.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+
+            while (i < this.cardinality || j < that.cardinality) {
+                if (j == that.cardinality || (i < this.cardinality && this.values[i] < that.values[j])) {
+                    result[count++] = this.values[i++];
+                } else if (i == this.cardinality || this.values[i] > that.values[j]) {
+                    result[count++] = that.values[j++];
+                } else {
+                    result[count++] = this.values[i++];
+                    j++;
+                }
+            }
+
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(this.values, this.cardinality), this.cardinality);
+        }
+
+        @Override
+        void forEach(final int high, final IntConsumer consumer) {
+            for (int i = 0; i < this.cardinality; i++) {
+                consumer.accept(high | this.values[i]);
+            }
+        }
+
+        @Override
+        char first() {
+            return this.values[0];
+        }
+
+        private BitmapContainer toBitmap() {
+            final BitmapContainer bitmap = new BitmapContainer(new long[1024], 0);
+
+            for (int i = 0; i < this.cardinality; i++) {
+                bitmap.add(this.values[i]);
+            }
+
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+
+        private BitmapContainer(final long[] words, final int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        boolean contains(final char value) {
+            return (this.words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(final char value) {
+            final long word = this.words[value >>> 6];
+            final long bit = 1L << value;
+
+            if ((word & bit) == 0) {
+                this.words[value >>> 6] = word | bit;
+                this.cardinality++;
+            }
+
+            return this;
+        }
+
+        @Override
+        Container remove(final char value) {
+            final long word = this.words[value >>> 6];
+            final long bit = 1L << value;
+
+            if ((word & bit) == 0) {
+                return this;
+            }
+
+            this.words[value >>> 6] = word & ~bit;
+            this.cardinality--;
+
+            // convert back well below the limit, so values added and removed around it don't convert every time
+            return this.cardinality <= ARRAY_LIMIT / 2 ? this.toArray() : this;
+        }
+
+        @Override
+        Container and(final Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+
+            final long[] otherWords = ((BitmapContainer) other).words;
+            final long[] result = new long[1024];
+            int cardinality = 0;
+
+            for (int i = 0; i < result.length; i++) {
+                result[i] = this.words[i] & otherWords[i];
+                cardinality += Long.bitCount(result[i]);
+            }
+
+            final BitmapContainer bitmap = new BitmapContainer(result, cardinality);
+            return cardinality <= ARRAY_LIMIT ? bitmap.toArray() : bitmap;
+        }
+
+        @Override
+        Container orWith(final Container other) {
+            if (other instanceof ArrayContainer) {
+                final ArrayContainer that = (ArrayContainer) other;
+
+                for (int i = 0; i < that.cardinality; i++) {
+                    this.add(that.values[i]);
+                }
+
+                return this;
+            }
+
+            final long[] otherWords = ((BitmapContainer) other).words;
+            int cardinality = 0;
+
+            for (int i = 0; i < this.words.length; i++) {
+                this.words[i] |= otherWords[i];
+                cardinality += Long.bitCount(this.words[i]);
+            }
+
+            this.cardinality = cardinality;
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(this.words.clone(), this.cardinality);
+        }
+
+        @Override
+        void forEach(final int high, final IntConsumer consumer) {
+            for (int i = 0; i < this.words.length; i++) {
+                long word = this.words[i];
+
+                while (word != 0) {
+                    consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        char first() {
+            int i = 0;
+
+            while (this.words[i] == 0) {
+                i++;
+            }
+
+            return (char) ((i << 6) | Long.numberOfTrailingZeros(this.words[i]));
+        }
+
+        private ArrayContainer toArray() {
+            final char[] values = new char[this.cardinality];
+            int count = 0;
+
+            for (int i = 0; i < this.words.length; i++) {
+                long word = this.words[i];
+
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+
+            return new ArrayContainer(values, count);
+        }
+    }
+
+    private final class BitmapIterator implements PrimitiveIterator.OfInt {
+        private int containerIndex;
+        private int position; // next array index, or next word index of a bitmap container
+        private long word;
+
+        @Override
+        public boolean hasNext() {
+            while (this.containerIndex < RoaringBitmap.this.size) {
+                final Container container = RoaringBitmap.this.containers[this.containerIndex];
+
+                if (container instanceof ArrayContainer) {
+                    if (this.position < container.cardinality) {
+                        return true;
+                    }
+                } else {
+                    final long[] words = ((BitmapContainer) container).words;
+
+                    while (this.word == 0 && this.position < words.length) {
+                        this.word = words[this.position++];
+                    }
+
+                    if (this.word != 0) {
+                        return true;
+                    }
+                }
+
+                this.containerIndex++;
+                this.position = 0;
+                this.word = 0;
+            }
+
+            return false;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final int high = RoaringBitmap.this.keys[this.containerIndex] << 16;
+            final Container container = RoaringBitmap.this.containers[this.containerIndex];
+
+            if (container instanceof ArrayContainer) {
+                return high | ((ArrayContainer) container).values[this.position++];
+            }
+
+            final int bit = Long.numberOfTrailingZeros(this.word);
+            this.word &= this.word - 1;
+            return high | ((this.position - 1) << 6) | bit;
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package net.tridentgames.membase.index.reducer;
 
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 import net.tridentgames.membase.index.Element;
+import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
 
 @SuppressWarnings("unchecked")
-public abstract class ComparingReducer<K, V> implements Reducer<K, V> {
+public abstract class ComparingReducer<K, V> implements IncrementalReducer<K, V> {
     private final Function<V, ?> valueProvider;
     private final Comparator<Object> comparator;
     private final boolean nullGreater;
@@ -29,6 +39,11 @@ public abstract class ComparingReducer<K, V> implements Reducer<K, V> {
         elements.stream().reduce(this::reduce);
     }
 
+    @Override
+    public @NotNull ReducerState<V> createState(final K key) {
+        return new ComparingState();
+    }
+
     private Element<V> reduce(final Element<V> element1, final Element<V> element2) {
         final Object comparable1 = this.valueProvider.apply(element1.get());
         final Object comparable2 = this.valueProvider.apply(element2.get());
@@ -43,4 +58,96 @@ public abstract class ComparingReducer<K, V> implements Reducer<K, V> {
     }
 
     protected abstract int compare(Object value1, Object value2, Comparator<Object> comparator, boolean nullGreater);
+
+    /**
+     * Keeps every reference of a key ranked by its compared value, the winner being the first. Equal values are
+     * ranked by recency so the latest reference wins, as it does when reducing a list.
+     */
+    private final class ComparingState implements ReducerState<V> {
+        private final NavigableSet<Candidate<V>> candidates;
+        private final Map<Reference<V>, Candidate<V>> candidateMap;
+        private Set<Reference<V>> reduced;
+        private long sequence;
+
+        ComparingState() {
+            this.candidates = new TreeSet<>(this::rank);
+            this.candidateMap = new HashMap<>();
+            this.reduced = Collections.emptySet();
+        }
+
+        private ComparingState(final ComparingState state) {
+            this.candidates = new TreeSet<>(state.candidates);
+            this.candidateMap = new HashMap<>(state.candidateMap);
+            this.reduced = state.reduced;
+            this.sequence = state.sequence;
+        }
+
+        @Override
+        public void add(@NotNull Reference<V> reference) {
+            final Candidate<V> candidate = new Candidate<>(reference, ComparingReducer.this.valueProvider.apply(reference.get()), this.sequence++);
+            final Candidate<V> previous = this.candidateMap.put(reference, candidate);
+
+            if (Objects.nonNull(previous)) {
+                this.candidates.remove(previous);
+            }
+
+            this.candidates.add(candidate);
+            this.updateReduced();
+        }
+
+        @Override
+        public void remove(@NotNull Reference<V> reference) {
+            final Candidate<V> candidate = this.candidateMap.remove(reference);
+
+            if (Objects.nonNull(candidate)) {
+                this.candidates.remove(candidate);
+                this.updateReduced();
+            }
+        }
+
+        @Override
+        public @NotNull @Unmodifiable Set<Reference<V>> getReducedReferences() {
+            return this.reduced;
+        }
+
+        @Override
+        public @NotNull ReducerState<V> copy() {
+            return new ComparingState(this);
+        }
+
+        private void updateReduced() {
+            if (this.candidates.isEmpty()) {
+                this.reduced = Collections.emptySet();
+                return;
+            }
+
+            final Reference<V> winner = this.candidates.first().reference;
+
+            if (!this.reduced.contains(winner)) {
+                this.reduced = Collections.singleton(winner);
+            }
+        }
+
+        private int rank(final Candidate<V> candidate1, final Candidate<V> candidate2) {
+            final int comparison = ComparingReducer.this.compare(candidate2.value, candidate1.value, ComparingReducer.this.comparator, ComparingReducer.this.nullGreater);
+
+            if (comparison != 0) {
+                return comparison;
+            }
+
+            return Long.compare(candidate2.sequence, candidate1.sequence);
+        }
+    }
+
+    private static final class Candidate<V> {
+        private final Reference<V> reference;
+        private final Object value;
+        private final long sequence;
+
+        private Candidate(final Reference<V> reference, final Object value, final long sequence) {
+            this.reference = reference;
+            this.value = value;
+            this.sequence = sequence;
+        }
+    }
 }
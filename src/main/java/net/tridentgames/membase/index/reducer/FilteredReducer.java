@@ -12,7 +12,7 @@ import org.jetbrains.annotations.NotNull;
  * @param <K> key type
  * @param <V> value type
  */
-public class FilteredReducer<K, V> implements Reducer<K, V> {
+public class FilteredReducer<K, V> implements IncrementalReducer<K, V> {
     private final Predicate<V> predicate;
 
     public FilteredReducer(@NotNull Predicate<V> predicate) {
@@ -27,4 +27,9 @@ public class FilteredReducer<K, V> implements Reducer<K, V> {
             }
         }
     }
+
+    @Override
+    public @NotNull ReducerState<V> createState(final K key) {
+        return new FilteringReducerState<>(this.predicate);
+    }
 }
@@ -0,0 +1,53 @@
+package net.tridentgames.membase.index.reducer;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+/**
+ * State of reducers that judge every element on its own, retaining the references not matching the predicate
+ *
+ * @param <V> value type
+ */
+class FilteringReducerState<V> implements ReducerState<V> {
+    private final Predicate<V> removeIf;
+    private final Set<Reference<V>> retained;
+    private final Set<Reference<V>> retainedView;
+
+    FilteringReducerState(@NotNull Predicate<V> removeIf) {
+        this(removeIf, Collections.emptySet());
+    }
+
+    private FilteringReducerState(@NotNull Predicate<V> removeIf, @NotNull Set<Reference<V>> retained) {
+        this.removeIf = removeIf;
+        this.retained = new LinkedHashSet<>(retained);
+        this.retainedView = Collections.unmodifiableSet(this.retained);
+    }
+
+    @Override
+    public void add(@NotNull Reference<V> reference) {
+        if (!this.removeIf.test(reference.get())) {
+            this.retained.add(reference);
+        }
+    }
+
+    @Override
+    public void remove(@NotNull Reference<V> reference) {
+        this.retained.remove(reference);
+    }
+
+    @Override
+    public @NotNull @Unmodifiable Set<Reference<V>> getReducedReferences() {
+        return this.retainedView;
+    }
+
+    @Override
+    public @NotNull ReducerState<V> copy() {
+        return new FilteringReducerState<>(this.removeIf, this.retained);
+    }
+}
@@ -0,0 +1,20 @@
+package net.tridentgames.membase.index.reducer;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A reducer that maintains its result as references are added to and removed from a key, instead of reducing every
+ * element of the key again on each change.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public interface IncrementalReducer<K, V> extends Reducer<K, V> {
+    /**
+     * Create the state tracking the reduced references of a single key
+     *
+     * @param key key the state belongs to
+     * @return empty state
+     */
+    @NotNull ReducerState<V> createState(K key);
+}
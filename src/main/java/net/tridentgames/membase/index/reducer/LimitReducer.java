@@ -1,9 +1,22 @@
 package net.tridentgames.membase.index.reducer;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
 import net.tridentgames.membase.index.Element;
+import net.tridentgames.membase.reference.Reference;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
 
 /**
  * Reduces elements a key once the configured limit has been reached
@@ -11,7 +24,7 @@ import org.jetbrains.annotations.NotNull;
  * @param <K> key type
  * @param <V> value type
  */
-public class LimitReducer<K, V> implements Reducer<K, V> {
+public class LimitReducer<K, V> implements IncrementalReducer<K, V> {
     private final int limit;
     private final Retain retain;
 
@@ -33,6 +46,11 @@ public class LimitReducer<K, V> implements Reducer<K, V> {
         }
     }
 
+    @Override
+    public @NotNull ReducerState<V> createState(final K key) {
+        return new LimitState();
+    }
+
     private void reduceNewest(@NotNull List<Element<V>> elements) {
         for (int i = 0; i < (elements.size() - this.limit); i++) {
             elements.get(i).remove();
@@ -45,6 +63,107 @@ public class LimitReducer<K, V> implements Reducer<K, V> {
         }
     }
 
+    /**
+     * Keeps every reference of a key ordered by insertion and the retained window of at most limit references at
+     * either end of that order. Only removing a retained reference pulls the next one into the window.
+     */
+    private final class LimitState implements ReducerState<V> {
+        private final NavigableMap<Long, Reference<V>> order;
+        private final Map<Reference<V>, Long> sequences;
+        private final Set<Reference<V>> retained;
+        private final Set<Reference<V>> retainedView;
+        private long lastRetained;
+        private long sequence;
+
+        LimitState() {
+            this.order = new TreeMap<>();
+            this.sequences = new HashMap<>();
+            this.retained = new LinkedHashSet<>();
+            this.retainedView = Collections.unmodifiableSet(this.retained);
+            this.lastRetained = -1;
+        }
+
+        private LimitState(final LimitState state) {
+            this.order = new TreeMap<>(state.order);
+            this.sequences = new HashMap<>(state.sequences);
+            this.retained = new LinkedHashSet<>(state.retained);
+            this.retainedView = Collections.unmodifiableSet(this.retained);
+            this.lastRetained = state.lastRetained;
+            this.sequence = state.sequence;
+        }
+
+        @Override
+        public void add(@NotNull Reference<V> reference) {
+            if (this.sequences.containsKey(reference)) {
+                this.remove(reference);
+            }
+
+            final long sequence = this.sequence++;
+            this.order.put(sequence, reference);
+            this.sequences.put(reference, sequence);
+
+            if (LimitReducer.this.retain == Retain.NEWEST) {
+                this.retained.add(reference);
+
+                if (this.retained.size() > LimitReducer.this.limit) {
+                    final Iterator<Reference<V>> iterator = this.retained.iterator();
+                    iterator.next();
+                    iterator.remove();
+                }
+            } else if (this.retained.size() < LimitReducer.this.limit) {
+                this.retained.add(reference);
+                this.lastRetained = sequence;
+            }
+        }
+
+        @Override
+        public void remove(@NotNull Reference<V> reference) {
+            final Long sequence = this.sequences.remove(reference);
+
+            if (Objects.isNull(sequence)) {
+                return;
+            }
+
+            this.order.remove(sequence);
+
+            if (!this.retained.remove(reference)) {
+                return;
+            }
+
+            if (LimitReducer.this.retain == Retain.NEWEST) {
+                // every reference outside the window is older than the window, pull in the newest of them
+                final Entry<Long, Reference<V>> next = this.retained.isEmpty()
+                    ? this.order.lastEntry()
+                    : this.order.lowerEntry(this.sequences.get(this.retained.iterator().next()));
+
+                if (Objects.nonNull(next)) {
+                    final List<Reference<V>> window = new ArrayList<>(this.retained);
+                    this.retained.clear();
+                    this.retained.add(next.getValue());
+                    this.retained.addAll(window);
+                }
+            } else {
+                // every reference outside the window is newer than the window, pull in the oldest of them
+                final Entry<Long, Reference<V>> next = this.order.higherEntry(this.lastRetained);
+
+                if (Objects.nonNull(next)) {
+                    this.retained.add(next.getValue());
+                    this.lastRetained = next.getKey();
+                }
+            }
+        }
+
+        @Override
+        public @NotNull @Unmodifiable Set<Reference<V>> getReducedReferences() {
+            return this.retainedView;
+        }
+
+        @Override
+        public @NotNull ReducerState<V> copy() {
+            return new LimitState(this);
+        }
+    }
+
     public enum Retain {
         NEWEST,
         OLDEST
@@ -5,6 +5,7 @@ import java.util.Objects;
 import java.util.function.Function;
 
 import net.tridentgames.membase.index.Element;
+import org.jetbrains.annotations.NotNull;
 
 /**
  * Reduces values and removes all null values from the index
@@ -12,7 +13,7 @@ import net.tridentgames.membase.index.Element;
  * @param <K> key type
  * @param <V> value
  */
-public class NullReducer<K, V> implements Reducer<K, V> {
+public class NullReducer<K, V> implements IncrementalReducer<K, V> {
     private final Function<V, ?> valueProvider;
 
     public NullReducer(final Function<V, ?> valueProvider) {
@@ -27,4 +28,9 @@ public class NullReducer<K, V> implements Reducer<K, V> {
             }
         }
     }
+
+    @Override
+    public @NotNull ReducerState<V> createState(final K key) {
+        return new FilteringReducerState<>(value -> Objects.isNull(this.valueProvider.apply(value)));
+    }
 }
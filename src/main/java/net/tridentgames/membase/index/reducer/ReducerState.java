@@ -0,0 +1,42 @@
+package net.tridentgames.membase.index.reducer;
+
+import java.util.Set;
+
+import net.tridentgames.membase.reference.Reference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+/**
+ * Reduced references of a single key, maintained by an {@link IncrementalReducer}
+ *
+ * @param <V> value type
+ */
+public interface ReducerState<V> {
+    /**
+     * Track a reference newly added to the key
+     *
+     * @param reference reference
+     */
+    void add(@NotNull Reference<V> reference);
+
+    /**
+     * Stop tracking a reference removed from the key
+     *
+     * @param reference reference
+     */
+    void remove(@NotNull Reference<V> reference);
+
+    /**
+     * References retained by the reducer, in the order they were added
+     *
+     * @return retained references
+     */
+    @NotNull @Unmodifiable Set<Reference<V>> getReducedReferences();
+
+    /**
+     * Create an independent copy of this state
+     *
+     * @return copy
+     */
+    @NotNull ReducerState<V> copy();
+}
@@ -0,0 +1,108 @@
+package net.tridentgames.membase.listener;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Snapshot of how a {@link RemovalDispatcher} keeps up with removals
+ */
+public class RemovalDispatchStats {
+    private final long deliveredCount;
+    private final long batchCount;
+    private final long droppedCount;
+    private final long blockedCount;
+    private final long failureCount;
+    private final int pendingCount;
+
+    public RemovalDispatchStats(final long deliveredCount, final long batchCount, final long droppedCount, final long blockedCount, final long failureCount, final int pendingCount) {
+        this.deliveredCount = deliveredCount;
+        this.batchCount = batchCount;
+        this.droppedCount = droppedCount;
+        this.blockedCount = blockedCount;
+        this.failureCount = failureCount;
+        this.pendingCount = pendingCount;
+    }
+
+    /**
+     * @return number of removals handed to their listeners
+     */
+    public long getDeliveredCount() {
+        return this.deliveredCount;
+    }
+
+    /**
+     * @return average number of removals per batch
+     */
+    public double getAverageBatchSize() {
+        return this.batchCount == 0 ? 0 : (double) this.deliveredCount / this.batchCount;
+    }
+
+    /**
+     * @return number of removals dropped because the queue was full
+     */
+    public long getDroppedCount() {
+        return this.droppedCount;
+    }
+
+    /**
+     * @return number of times a removing thread waited for the queue to have room
+     */
+    public long getBlockedCount() {
+        return this.blockedCount;
+    }
+
+    /**
+     * @return number of times a listener threw while handling a batch
+     */
+    public long getFailureCount() {
+        return this.failureCount;
+    }
+
+    /**
+     * @return number of queued removals not yet delivered
+     */
+    public int getPendingCount() {
+        return this.pendingCount;
+    }
+
+    @Override
+    public String toString() {
+        return "RemovalDispatchStats{" +
+            "deliveredCount=" + this.deliveredCount +
+            ", averageBatchSize=" + this.getAverageBatchSize() +
+            ", droppedCount=" + this.droppedCount +
+            ", blockedCount=" + this.blockedCount +
+            ", failureCount=" + this.failureCount +
+            ", pendingCount=" + this.pendingCount +
+            '}';
+    }
+
+    static class Recorder {
+        private final LongAdder deliveredCount = new LongAdder();
+        private final LongAdder batchCount = new LongAdder();
+        private final LongAdder droppedCount = new LongAdder();
+        private final LongAdder blockedCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+
+        void recordBatch(final int size) {
+            this.deliveredCount.add(size);
+            this.batchCount.increment();
+        }
+
+        void recordDrop() {
+            this.droppedCount.increment();
+        }
+
+        void recordBlock() {
+            this.blockedCount.increment();
+        }
+
+        void recordFailure() {
+            this.failureCount.increment();
+        }
+
+        @NotNull RemovalDispatchStats snapshot(final int pendingCount) {
+            return new RemovalDispatchStats(this.deliveredCount.sum(), this.batchCount.sum(), this.droppedCount.sum(), this.blockedCount.sum(), this.failureCount.sum(), pendingCount);
+        }
+    }
+}
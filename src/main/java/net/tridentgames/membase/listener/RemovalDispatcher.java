@@ -0,0 +1,165 @@
+package net.tridentgames.membase.listener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.tridentgames.membase.listener.enums.OverflowPolicy;
+import net.tridentgames.membase.listener.enums.RemovalType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Notifies removal listeners on an executor, e.g. a virtual thread executor, instead of the thread removing the items.
+ * Removals are queued and handed to the listeners of their {@link RemovalType} in batches of up to the batch size, see
+ * {@link RemovalListener#batched(java.util.function.Consumer)}, so slow listeners never run while the store is locked.
+ * The queue is bounded, the {@link OverflowPolicy} decides what happens to removals while it is full. A single batch is
+ * delivered at a time, so each listener receives items in the order they were removed.
+ *
+ * @param <V> value type
+ */
+public class RemovalDispatcher<V> {
+    private final Map<RemovalType, Set<RemovalListener<V>>> removalListeners;
+    private final Executor executor;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<Removal<V>> queue;
+    private final AtomicBoolean draining;
+    private final RemovalDispatchStats.Recorder dispatchStats;
+
+    /**
+     * @param removalListeners listeners to notify, read whenever a batch is delivered
+     * @param executor         executor delivering batches
+     * @param capacity         maximum number of queued removals
+     * @param batchSize        maximum number of removals per batch
+     * @param overflowPolicy   what to do with removals while the queue is full
+     */
+    public RemovalDispatcher(@NotNull Map<RemovalType, Set<RemovalListener<V>>> removalListeners, @NotNull Executor executor, final int capacity, final int batchSize, @NotNull OverflowPolicy overflowPolicy) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Capacity and batch size must be at least 1");
+        }
+
+        this.removalListeners = removalListeners;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.draining = new AtomicBoolean();
+        this.dispatchStats = new RemovalDispatchStats.Recorder();
+    }
+
+    /**
+     * Queue a removal for its listeners. Removals without listeners are not queued.
+     *
+     * @param removalType removal type
+     * @param item        removed item
+     */
+    public void dispatch(@NotNull RemovalType removalType, @NotNull V item) {
+        final Set<RemovalListener<V>> listeners = this.removalListeners.get(removalType);
+
+        if (Objects.isNull(listeners) || listeners.isEmpty()) {
+            return;
+        }
+
+        final Removal<V> removal = new Removal<>(removalType, item);
+
+        if (!this.queue.offer(removal)) {
+            if (this.overflowPolicy == OverflowPolicy.DROP) {
+                this.dispatchStats.recordDrop();
+                return;
+            }
+
+            this.dispatchStats.recordBlock();
+            this.drain(); // make sure someone is emptying the queue
+
+            try {
+                this.queue.put(removal);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.dispatchStats.recordDrop();
+                return;
+            }
+        }
+
+        this.drain();
+    }
+
+    /**
+     * Create a dispatcher with the same settings notifying other listeners, used by store copies
+     *
+     * @param removalListeners listeners to notify
+     * @return dispatcher
+     */
+    public @NotNull RemovalDispatcher<V> withListeners(@NotNull Map<RemovalType, Set<RemovalListener<V>>> removalListeners) {
+        return new RemovalDispatcher<>(removalListeners, this.executor, this.capacity, this.batchSize, this.overflowPolicy);
+    }
+
+    public @NotNull RemovalDispatchStats getDispatchStats() {
+        return this.dispatchStats.snapshot(this.queue.size());
+    }
+
+    private void drain() {
+        if (!this.draining.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            this.executor.execute(this::deliver);
+        } catch (final RuntimeException e) {
+            this.draining.set(false); // rejected, the next removal tries again
+        }
+    }
+
+    private void deliver() {
+        final List<Removal<V>> removals = new ArrayList<>(Math.min(this.batchSize, this.capacity));
+
+        do {
+            while (this.queue.drainTo(removals, this.batchSize) > 0) {
+                this.deliver(removals);
+                removals.clear();
+            }
+
+            this.draining.set(false);
+        } while (!this.queue.isEmpty() && this.draining.compareAndSet(false, true)); // queued after the last drain
+    }
+
+    private void deliver(final List<Removal<V>> removals) {
+        final Map<RemovalType, List<V>> batches = new EnumMap<>(RemovalType.class);
+
+        for (final Removal<V> removal : removals) {
+            batches.computeIfAbsent(removal.removalType, removalType -> new ArrayList<>()).add(removal.item);
+        }
+
+        for (final Map.Entry<RemovalType, List<V>> batch : batches.entrySet()) {
+            final List<V> items = Collections.unmodifiableList(batch.getValue());
+
+            for (final RemovalListener<V> listener : this.removalListeners.getOrDefault(batch.getKey(), Collections.emptySet())) {
+                try {
+                    listener.getBatchListener().accept(items);
+                } catch (final RuntimeException e) {
+                    this.dispatchStats.recordFailure(); // keep notifying the other listeners
+                }
+            }
+
+            this.dispatchStats.recordBatch(items.size());
+        }
+    }
+
+    private static final class Removal<V> {
+        private final RemovalType removalType;
+        private final V item;
+
+        private Removal(final RemovalType removalType, final V item) {
+            this.removalType = removalType;
+            this.item = item;
+        }
+    }
+}
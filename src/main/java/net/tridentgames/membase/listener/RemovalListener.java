@@ -1,16 +1,40 @@
 package net.tridentgames.membase.listener;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Consumer;
 import org.jetbrains.annotations.NotNull;
 
 public class RemovalListener<V> {
     private final Consumer<V> listener;
+    private final Consumer<List<V>> batchListener;
 
-    public RemovalListener(@NotNull Consumer<V> listener) {
+    private RemovalListener(@NotNull Consumer<V> listener, @NotNull Consumer<List<V>> batchListener) {
         this.listener = listener;
+        this.batchListener = batchListener;
+    }
+
+    public RemovalListener(@NotNull Consumer<V> listener) {
+        this(listener, items -> items.forEach(listener));
+    }
+
+    /**
+     * Create a listener receiving removed items in batches when removals are dispatched by a
+     * {@link RemovalDispatcher}, and as single item lists otherwise
+     *
+     * @param batchListener listener
+     * @param <V>           value type
+     * @return listener
+     */
+    public static <V> @NotNull RemovalListener<V> batched(@NotNull Consumer<List<V>> batchListener) {
+        return new RemovalListener<>(item -> batchListener.accept(Collections.singletonList(item)), batchListener);
     }
 
     public @NotNull Consumer<V> getListener() {
         return this.listener;
     }
-}
\ No newline at end of file
+
+    public @NotNull Consumer<List<V>> getBatchListener() {
+        return this.batchListener;
+    }
+}
@@ -0,0 +1,16 @@
+package net.tridentgames.membase.listener.enums;
+
+/**
+ * What a {@link net.tridentgames.membase.listener.RemovalDispatcher} does with a removal while its queue is full
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait for the listeners to catch up, holding up the removing thread. Listeners must not wait for the store then,
+     * as the removing thread may hold its lock.
+     */
+    BLOCK,
+    /**
+     * Drop the removal, its listeners are never notified
+     */
+    DROP
+}
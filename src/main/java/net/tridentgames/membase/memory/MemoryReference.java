@@ -9,9 +9,11 @@ import net.tridentgames.membase.reference.Reference;
  */
 public class MemoryReference<T> implements Reference<T> {
     private final T reference;
+    private final int id;
 
-    public MemoryReference(final T reference) {
+    public MemoryReference(final T reference, final int id) {
         this.reference = reference;
+        this.id = id;
     }
 
     @Override
@@ -19,6 +21,11 @@ public class MemoryReference<T> implements Reference<T> {
         return this.reference;
     }
 
+    @Override
+    public int getId() {
+        return this.id;
+    }
+
     @Override
     public String toString() {
         return String.valueOf(this.reference);
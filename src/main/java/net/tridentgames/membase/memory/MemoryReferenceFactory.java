@@ -10,7 +10,7 @@ import net.tridentgames.membase.reference.ReferenceFactory;
  */
 public class MemoryReferenceFactory<V> implements ReferenceFactory<V> {
     @Override
-    public Reference<V> createReference(final V obj) {
-        return new MemoryReference<>(obj);
+    public Reference<V> createReference(final V obj, final int id) {
+        return new MemoryReference<>(obj, id);
     }
 }
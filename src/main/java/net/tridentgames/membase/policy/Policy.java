@@ -1,5 +1,7 @@
 package net.tridentgames.membase.policy;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.function.BiPredicate;
 import net.tridentgames.membase.policy.Policy.ExpirationData;
 import org.jetbrains.annotations.NotNull;
@@ -14,10 +16,61 @@ public interface Policy<V, T extends ExpirationData> {
         return null;
     }
 
+    /**
+     * Time in milliseconds at which the value expires according to this policy. Stores use it to check values when
+     * they are due instead of scanning every value. Policies that cannot tell return -1.
+     *
+     * @param value value
+     * @param data  expiration data of the value, may be null
+     * @return expiration time or -1
+     */
+    default long getExpirationTime(final V value, final T data) {
+        return -1;
+    }
+
     default boolean isNullable() {
         return true;
     }
 
+    /**
+     * Whether values expire once every expiring policy agrees in {@link #checkExpiration(Object, ExpirationData)}.
+     * Policies that only {@link #evict()} values return false and are not asked.
+     *
+     * @return true if this policy expires values
+     */
+    default boolean isExpiring() {
+        return true;
+    }
+
+    /**
+     * Values to remove right away regardless of other policies, e.g. to keep the store within a size. Stores ask after
+     * adding values and remove the returned ones as expired.
+     *
+     * @return values to evict, never null
+     */
+    default @NotNull Collection<V> evict() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Called when a value with expiration data is removed from the store
+     *
+     * @param value removed value
+     * @param data  expiration data of the value
+     */
+    default void onRemoval(final V value, final T data) {
+    }
+
+    /**
+     * Create the policy used by a copy of the store. Policies tracking the values of their store return a new policy
+     * with the same settings, the copy then creates expiration data for all of its values.
+     *
+     * @return policy for the copy, this if the copy may share this policy and the expiration data of its values
+     */
+    default @NotNull Policy<V, T> copy() {
+        return this;
+    }
+
     default BiPredicate<V, T> checkExpiration() {
         return this::checkExpiration;
     }
@@ -0,0 +1,54 @@
+package net.tridentgames.membase.policy;
+
+import net.tridentgames.membase.Store;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Estimates how much of a budget, e.g. bytes of heap, a value takes up. Values are weighed once when they are added,
+ * so the weight of a value must not change while it is stored.
+ *
+ * @param <V> value type
+ */
+@FunctionalInterface
+public interface Weigher<V> {
+    /**
+     * Estimated bytes a memory store spends on each value besides the value itself: its reference, its entry in the
+     * reference manager and its id. Assumes a 64-bit JVM with compressed references.
+     */
+    long REFERENCE_OVERHEAD = 80;
+
+    /**
+     * Estimated bytes each index of a memory store spends on a value with a single key: its id in the references of
+     * the key and its entry in the reverse map of the index
+     */
+    long INDEX_OVERHEAD = 48;
+
+    /**
+     * Weigh a value
+     *
+     * @param value value
+     * @return weight, at least 0
+     */
+    long weigh(@NotNull V value);
+
+    /**
+     * Create a weigher also counting what the store spends on a value, see {@link #REFERENCE_OVERHEAD} and
+     * {@link #INDEX_OVERHEAD}. The indexes of the store are counted when a value is weighed.
+     *
+     * @param store store holding the weighed values
+     * @return weigher
+     */
+    default @NotNull Weigher<V> withStoreOverhead(@NotNull Store<?> store) {
+        return value -> this.weigh(value) + REFERENCE_OVERHEAD + INDEX_OVERHEAD * store.getIndexes().size();
+    }
+
+    /**
+     * Get a weigher weighing every value 1, bounding the number of values
+     *
+     * @param <V> value type
+     * @return weigher
+     */
+    static <V> @NotNull Weigher<V> singleton() {
+        return value -> 1;
+    }
+}
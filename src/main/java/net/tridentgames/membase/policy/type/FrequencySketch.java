@@ -0,0 +1,114 @@
+package net.tridentgames.membase.policy.type;
+
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Count-min sketch estimating how often values were seen recently, in 4-bit counters packed into longs. Each value is
+ * counted in four counters chosen by its hash and its frequency is the smallest of them. Once ten times as many values
+ * were counted as the sketch was sized for, all counters are halved, so old popularity fades.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private long[] table;
+    private int tableMask;
+    private int sampleSize;
+    private int size;
+
+    /**
+     * @param expectedSize number of values expected to be tracked at once
+     */
+    FrequencySketch(final long expectedSize) {
+        this.ensureCapacity(expectedSize);
+    }
+
+    /**
+     * Grow the sketch to track more values than it was sized for, forgetting all frequencies
+     *
+     * @param expectedSize number of values expected to be tracked at once
+     */
+    void ensureCapacity(final long expectedSize) {
+        final int capacity = (int) Math.max(1, Math.min(expectedSize, 1 << 24));
+
+        if (Objects.nonNull(this.table) && capacity <= this.table.length) {
+            return;
+        }
+
+        this.table = new long[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+        this.tableMask = this.table.length - 1;
+        this.sampleSize = capacity * 10;
+        this.size = 0;
+    }
+
+    /**
+     * @return number of values the sketch is sized for
+     */
+    int getCapacity() {
+        return this.table.length;
+    }
+
+    int frequency(@NotNull Object value) {
+        final int hash = spread(value.hashCode());
+        final int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+
+        for (int i = 0; i < 4; i++) {
+            final int offset = (start + i) << 2;
+            frequency = Math.min(frequency, (int) ((this.table[this.indexOf(hash, i)] >>> offset) & 0xfL));
+        }
+
+        return frequency;
+    }
+
+    void increment(@NotNull Object value) {
+        final int hash = spread(value.hashCode());
+        final int start = (hash & 3) << 2;
+        boolean added = false;
+
+        for (int i = 0; i < 4; i++) {
+            added |= this.incrementAt(this.indexOf(hash, i), start + i);
+        }
+
+        if (added && ++this.size == this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    private boolean incrementAt(final int index, final int counter) {
+        final int offset = counter << 2;
+        final long mask = 0xfL << offset;
+
+        if ((this.table[index] & mask) == mask) {
+            return false; // saturated
+        }
+
+        this.table[index] += 1L << offset;
+        return true;
+    }
+
+    private void reset() {
+        int odd = 0;
+
+        for (int i = 0; i < this.table.length; i++) {
+            odd += Long.bitCount(this.table[i] & ONE_MASK);
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+
+        this.size = (this.size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(final int hash, final int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return (int) index & this.tableMask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,303 @@
+package net.tridentgames.membase.policy.type;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import net.tridentgames.membase.policy.Policy;
+import net.tridentgames.membase.policy.Weigher;
+import net.tridentgames.membase.policy.type.SizeBoundedPolicy.SizeBoundedData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Evicts values once the store holds more than a maximum number of them, or more than a maximum total weight as told
+ * by a {@link Weigher}, keeping the values most likely to be used again (W-TinyLFU). New values enter a small LRU
+ * window, values leaving the window become candidates for the main region and are only admitted if they were used more
+ * often than the value they would replace. How often values were used is estimated by a sketch that forgets over time,
+ * so values popular in the past do not stay forever. The main region is split into a probation and a protected segment,
+ * values used again while on probation are protected. Evicted values are removed as {@link net.tridentgames.membase.listener.enums.RemovalType#EXPIRED}.
+ *
+ * @param <V> value type
+ */
+public class SizeBoundedPolicy<V> implements Policy<V, SizeBoundedData<V>> {
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final long maximumWeight;
+    private final Weigher<V> weigher;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+    private final AccessOrder<V> window;
+    private final AccessOrder<V> probation;
+    private final AccessOrder<V> protectedSegment;
+
+    protected SizeBoundedPolicy(final long maximumWeight, @NotNull Weigher<V> weigher, final long expectedSize) {
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("Maximum weight must be at least 1");
+        }
+
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        this.windowMaximum = Math.max(1, (long) (maximumWeight * WINDOW_RATIO));
+        this.protectedMaximum = (long) ((maximumWeight - this.windowMaximum) * PROTECTED_RATIO);
+        this.sketch = new FrequencySketch(expectedSize);
+        this.window = new AccessOrder<>();
+        this.probation = new AccessOrder<>();
+        this.protectedSegment = new AccessOrder<>();
+    }
+
+    public static <V> SizeBoundedPolicy<V> of(final long maximumSize) {
+        return new SizeBoundedPolicy<>(maximumSize, Weigher.singleton(), maximumSize);
+    }
+
+    /**
+     * Create a policy bounding the total weight of the values instead of their number, e.g. to give a store a memory
+     * budget in bytes. Values weigh what the weigher told when they were added.
+     *
+     * @param maximumWeight maximum total weight
+     * @param weigher       weigher, see {@link Weigher#withStoreOverhead(net.tridentgames.membase.Store)}
+     * @param <V>           value type
+     * @return policy
+     */
+    public static <V> SizeBoundedPolicy<V> weighted(final long maximumWeight, @NotNull Weigher<V> weigher) {
+        return new SizeBoundedPolicy<>(maximumWeight, weigher, 16);
+    }
+
+    @Override
+    public @NotNull String key() {
+        return "size";
+    }
+
+    @Override
+    public boolean checkExpiration(V value, SizeBoundedData<V> data) {
+        return false;
+    }
+
+    @Override
+    public boolean isExpiring() {
+        return false;
+    }
+
+    @Override
+    public boolean isNullable() {
+        return false;
+    }
+
+    @Override
+    public @Nullable SizeBoundedData<V> createExpirationData(final V value) {
+        final long weight = this.weigher.weigh(value);
+
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " of " + value);
+        }
+
+        final SizeBoundedData<V> data = new SizeBoundedData<>(value, weight);
+
+        this.sketch.increment(value);
+        this.window.linkLast(data, Region.WINDOW);
+        return data;
+    }
+
+    @Override
+    public void onAccess(V value, SizeBoundedData<V> data) {
+        this.sketch.increment(value);
+
+        switch (data.region) {
+            case WINDOW:
+                this.window.moveToBack(data);
+                break;
+            case PROBATION:
+                this.probation.unlink(data);
+                this.protectedSegment.linkLast(data, Region.PROTECTED);
+
+                while (this.protectedSegment.weight > this.protectedMaximum) {
+                    final SizeBoundedData<V> demoted = this.protectedSegment.head;
+                    this.protectedSegment.unlink(demoted);
+                    this.probation.linkLast(demoted, Region.PROBATION);
+                }
+
+                break;
+            case PROTECTED:
+                this.protectedSegment.moveToBack(data);
+                break;
+            default:
+                break; // evicted
+        }
+    }
+
+    @Override
+    public void onRemoval(V value, SizeBoundedData<V> data) {
+        if (data.region != Region.NONE) {
+            this.regionOf(data).unlink(data);
+        }
+    }
+
+    /**
+     * Move values the window no longer holds to probation and evict the least valuable values while the store holds
+     * more than the maximum weight
+     */
+    @Override
+    public @NotNull Collection<V> evict() {
+        SizeBoundedData<V> candidate = null;
+
+        while (this.window.weight > this.windowMaximum) {
+            final SizeBoundedData<V> moved = this.window.head;
+            this.window.unlink(moved);
+            this.probation.linkLast(moved, Region.PROBATION);
+
+            if (Objects.isNull(candidate)) {
+                candidate = moved;
+            }
+        }
+
+        if (this.getWeight() <= this.maximumWeight) {
+            this.sketch.ensureCapacity(this.getSize());
+            return Collections.emptyList();
+        }
+
+        final List<V> evicted = new ArrayList<>();
+
+        while (this.getWeight() > this.maximumWeight) {
+            final SizeBoundedData<V> victim = this.victim();
+
+            if (Objects.isNull(candidate) || candidate == victim) {
+                candidate = Objects.isNull(candidate) ? null : candidate.next;
+                this.evict(victim, evicted);
+            } else if (candidate.weight <= this.maximumWeight && this.sketch.frequency(candidate.value) > this.sketch.frequency(victim.value)) {
+                this.evict(victim, evicted);
+            } else {
+                final SizeBoundedData<V> rejected = candidate;
+                candidate = candidate.next;
+                this.evict(rejected, evicted);
+            }
+        }
+
+        this.sketch.ensureCapacity(this.getSize()); // weighted values may fit more than expected
+        return evicted;
+    }
+
+    @Override
+    public @NotNull Policy<V, SizeBoundedData<V>> copy() {
+        return new SizeBoundedPolicy<>(this.maximumWeight, this.weigher, this.sketch.getCapacity());
+    }
+
+    public long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * @return number of values currently tracked
+     */
+    public long getSize() {
+        return this.window.size + this.probation.size + this.protectedSegment.size;
+    }
+
+    /**
+     * @return total weight of the values currently tracked, their number unless weighted
+     */
+    public long getWeight() {
+        return this.window.weight + this.probation.weight + this.protectedSegment.weight;
+    }
+
+    private @NotNull SizeBoundedData<V> victim() {
+        if (Objects.nonNull(this.probation.head)) {
+            return this.probation.head;
+        }
+
+        return Objects.nonNull(this.protectedSegment.head) ? this.protectedSegment.head : this.window.head;
+    }
+
+    private void evict(final SizeBoundedData<V> data, final List<V> evicted) {
+        this.regionOf(data).unlink(data);
+        evicted.add(data.value);
+    }
+
+    private AccessOrder<V> regionOf(final SizeBoundedData<V> data) {
+        switch (data.region) {
+            case WINDOW:
+                return this.window;
+            case PROBATION:
+                return this.probation;
+            default:
+                return this.protectedSegment;
+        }
+    }
+
+    private enum Region {
+        NONE,
+        WINDOW,
+        PROBATION,
+        PROTECTED
+    }
+
+    public static class SizeBoundedData<V> implements ExpirationData {
+        private final V value;
+        private final long weight;
+        private Region region;
+        private SizeBoundedData<V> previous;
+        private SizeBoundedData<V> next;
+
+        SizeBoundedData(final V value, final long weight) {
+            this.value = value;
+            this.weight = weight;
+            this.region = Region.NONE;
+        }
+    }
+
+    /**
+     * Doubly linked list of values from least to most recently used
+     */
+    private static final class AccessOrder<V> {
+        private SizeBoundedData<V> head;
+        private SizeBoundedData<V> tail;
+        private long size;
+        private long weight;
+
+        void linkLast(final SizeBoundedData<V> data, final Region region) {
+            data.region = region;
+            data.previous = this.tail;
+            data.next = null;
+
+            if (Objects.isNull(this.tail)) {
+                this.head = data;
+            } else {
+                this.tail.next = data;
+            }
+
+            this.tail = data;
+            this.size++;
+            this.weight += data.weight;
+        }
+
+        void unlink(final SizeBoundedData<V> data) {
+            if (Objects.isNull(data.previous)) {
+                this.head = data.next;
+            } else {
+                data.previous.next = data.next;
+            }
+
+            if (Objects.isNull(data.next)) {
+                this.tail = data.previous;
+            } else {
+                data.next.previous = data.previous;
+            }
+
+            data.region = Region.NONE;
+            data.previous = null;
+            data.next = null;
+            this.size--;
+            this.weight -= data.weight;
+        }
+
+        void moveToBack(final SizeBoundedData<V> data) {
+            if (this.tail != data) {
+                final Region region = data.region;
+                this.unlink(data);
+                this.linkLast(data, region);
+            }
+        }
+    }
+}
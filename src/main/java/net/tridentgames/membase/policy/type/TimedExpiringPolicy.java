@@ -31,6 +31,15 @@ public class TimedExpiringPolicy<V> implements Policy<V, TimedExpirationData> {
         return  System.currentTimeMillis() - data.getLastFetched() >= TimedExpiringPolicy.this.unit.toMillis(TimedExpiringPolicy.this.duration);
     }
 
+    @Override
+    public long getExpirationTime(V value, TimedExpirationData data) {
+        if (data == null) {
+            return -1;
+        }
+
+        return data.getLastFetched() + this.unit.toMillis(this.duration);
+    }
+
     @Override
     public void onAccess(V value, TimedExpirationData data) {
         if (this.resetOnAccess) {
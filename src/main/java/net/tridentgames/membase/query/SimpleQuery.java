@@ -8,28 +8,79 @@ import net.tridentgames.membase.query.section.Section;
 import net.tridentgames.membase.query.section.SectionOperator;
 import net.tridentgames.membase.query.section.SectionPart;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public final class SimpleQuery implements Query {
     private IndexOperator operator;
     private String indexName;
     private Object value;
+    private Object upperValue;
 
+    /**
+     * Match items whose indexed key contains the value. Indexes created with
+     * {@link net.tridentgames.membase.index.IndexDefinition#withSubstringIndex()} match keys containing the value as a
+     * substring, other indexes match items indexed by a collection holding the value.
+     *
+     * @param indexName name of the index
+     * @param value     value to search for
+     * @return query
+     */
     public @NotNull SimpleQuery contains(@NotNull String indexName, @NotNull String value) {
-        this.operator = IndexOperator.CONTAINS;
-        this.indexName = indexName;
-        this.value = value;
-        return this;
+        return this.operation(IndexOperator.CONTAINS, indexName, value, null);
     }
 
     public @NotNull SimpleQuery where(@NotNull String indexName, @NotNull Object value) {
-        this.operator = IndexOperator.EQUALS;
-        this.indexName = indexName;
-        this.value = value;
-        return this;
+        return this.operation(IndexOperator.EQUALS, indexName, value, null);
+    }
+
+    /**
+     * Match items whose indexed key is greater than the value. Sorted indexes resolve ranges without comparing every
+     * key, see {@link net.tridentgames.membase.index.IndexDefinition#withSorting()}.
+     *
+     * @param indexName name of the index
+     * @param value     exclusive lower bound
+     * @return query
+     */
+    public @NotNull SimpleQuery greaterThan(@NotNull String indexName, @NotNull Object value) {
+        return this.operation(IndexOperator.GREATER_THAN, indexName, value, null);
+    }
+
+    /**
+     * Match items whose indexed key is less than the value.
+     *
+     * @param indexName name of the index
+     * @param value     exclusive upper bound
+     * @return query
+     */
+    public @NotNull SimpleQuery lessThan(@NotNull String indexName, @NotNull Object value) {
+        return this.operation(IndexOperator.LESS_THAN, indexName, value, null);
+    }
+
+    /**
+     * Match items whose indexed key lies between both values, inclusive.
+     *
+     * @param indexName name of the index
+     * @param from      inclusive lower bound
+     * @param to        inclusive upper bound
+     * @return query
+     */
+    public @NotNull SimpleQuery between(@NotNull String indexName, @NotNull Object from, @NotNull Object to) {
+        return this.operation(IndexOperator.BETWEEN, indexName, from, to);
+    }
+
+    /**
+     * Match items whose indexed String key starts with the prefix.
+     *
+     * @param indexName name of the index
+     * @param prefix    prefix to match
+     * @return query
+     */
+    public @NotNull SimpleQuery prefix(@NotNull String indexName, @NotNull String prefix) {
+        return this.operation(IndexOperator.PREFIX, indexName, prefix, null);
     }
 
     public @NotNull SectionPart asPart() {
-        return new SectionPart(this.indexName, this.value, this.operator);
+        return new SectionPart(this.indexName, this.value, this.upperValue, this.operator);
     }
 
     @Override
@@ -45,4 +96,12 @@ public final class SimpleQuery implements Query {
     public @NotNull Section build() {
         return new Section(this.asPart(), SectionOperator.AND);
     }
+
+    private @NotNull SimpleQuery operation(@NotNull IndexOperator operator, @NotNull String indexName, @NotNull Object value, @Nullable Object upperValue) {
+        this.operator = operator;
+        this.indexName = indexName;
+        this.value = value;
+        this.upperValue = upperValue;
+        return this;
+    }
 }
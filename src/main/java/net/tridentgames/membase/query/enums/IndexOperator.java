@@ -2,5 +2,9 @@ package net.tridentgames.membase.query.enums;
 
 public enum IndexOperator {
     EQUALS,
-    CONTAINS
+    CONTAINS,
+    GREATER_THAN,
+    LESS_THAN,
+    BETWEEN,
+    PREFIX
 }
@@ -0,0 +1,399 @@
+package net.tridentgames.membase.query.planner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import net.tridentgames.membase.index.IndexManager;
+import net.tridentgames.membase.index.AbstractIndex;
+import net.tridentgames.membase.index.primitive.RoaringBitmap;
+import net.tridentgames.membase.query.Query;
+import net.tridentgames.membase.query.section.Section;
+import net.tridentgames.membase.query.section.SectionOperator;
+import net.tridentgames.membase.query.section.SectionPart;
+import net.tridentgames.membase.reference.Reference;
+import net.tridentgames.membase.reference.ReferenceManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Resolves a {@link Query} against the indexes of a store. A reference matches the query when it matches any of its
+ * sections. When every index of a section can provide its posting lists as bitmaps of reference ids, the section is
+ * evaluated as a bitmap AND or OR, smallest bitmap first, and matching ids are resolved through the reference manager.
+ * Otherwise parts of an AND section are ordered by the cardinality of their posting lists, the smallest list is walked
+ * and every other part is probed by membership, so no intermediate sets are built.
+ *
+ * @param <V> value type
+ */
+public class QueryPlanner<V> {
+    private static final Comparator<Set<?>> BY_SIZE = Comparator.comparingInt(Set::size);
+    private static final Comparator<RoaringBitmap> BY_CARDINALITY = Comparator.comparingInt(RoaringBitmap::getCardinality);
+
+    private final ReferenceManager<V> referenceManager;
+    private final IndexManager<V> indexManager;
+
+    public QueryPlanner(@NotNull ReferenceManager<V> referenceManager, @NotNull IndexManager<V> indexManager) {
+        this.referenceManager = referenceManager;
+        this.indexManager = indexManager;
+    }
+
+    /**
+     * Execute the query and collect all matching references in the order they were found
+     *
+     * @param query query to execute
+     * @return matching references
+     */
+    public @NotNull Set<Reference<V>> execute(@NotNull Query query) {
+        return this.execute(query, null);
+    }
+
+    /**
+     * Execute the query and collect matching references in the order they were found. Evaluation stops as soon as
+     * the limit has been reached, so only the references that are returned are ever visited.
+     *
+     * @param query query to execute
+     * @param limit maximum number of references to collect, null or a negative value for no limit
+     * @return matching references
+     */
+    public @NotNull Set<Reference<V>> execute(@NotNull Query query, @Nullable Integer limit) {
+        final int maxResults = Objects.isNull(limit) || limit < 0 ? Integer.MAX_VALUE : limit;
+        final Set<Reference<V>> results = new LinkedHashSet<>();
+
+        for (final Section section : query.getSections()) {
+            if (results.size() >= maxResults) {
+                break;
+            }
+
+            final RoaringBitmap ids = this.resolveIds(section);
+
+            if (Objects.nonNull(ids)) {
+                this.collect(ids, results, maxResults);
+            } else if (section.getOperator() == SectionOperator.OR) {
+                for (final SectionPart part : section.getParts()) {
+                    if (!this.collect(this.resolve(part), results, maxResults)) {
+                        break;
+                    }
+                }
+            } else {
+                this.intersect(section, results, maxResults);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Execute the query and perform an action for each matching item in the order they were found. A query of a
+     * single section whose indexes provide id bitmaps passes items straight from the bitmap, without collecting
+     * references first.
+     *
+     * @param query  query to execute
+     * @param limit  maximum number of items, null or a negative value for no limit
+     * @param action action to perform
+     * @return number of matching items
+     */
+    public int execute(@NotNull Query query, @Nullable Integer limit, @NotNull Consumer<? super V> action) {
+        final int maxResults = Objects.isNull(limit) || limit < 0 ? Integer.MAX_VALUE : limit;
+        final List<Section> sections = query.getSections();
+        final RoaringBitmap ids = sections.size() == 1 ? this.resolveIds(sections.get(0)) : null;
+        int count = 0;
+
+        if (Objects.isNull(ids)) {
+            final Iterator<Reference<V>> iterator = this.iterator(query, limit);
+
+            while (iterator.hasNext()) {
+                action.accept(iterator.next().get());
+                count++;
+            }
+
+            return count;
+        }
+
+        final PrimitiveIterator.OfInt iterator = ids.iterator();
+
+        while (iterator.hasNext() && count < maxResults) {
+            final Reference<V> reference = this.referenceManager.getReference(iterator.nextInt());
+
+            if (Objects.nonNull(reference)) {
+                action.accept(reference.get());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Execute the query and iterate the matching references lazily, in the same order as {@link #execute(Query)}.
+     * When the indexes of every section provide id bitmaps, only the bitmaps are resolved up front and references
+     * are resolved one at a time while iterating. A reference matching several sections is returned once, by
+     * checking the bitmaps of the sections before it. Otherwise the matching references are collected first. The
+     * indexes must not be modified while iterating.
+     *
+     * @param query query to execute
+     * @param limit maximum number of references to iterate, null or a negative value for no limit
+     * @return matching references
+     */
+    public @NotNull Iterator<Reference<V>> iterator(@NotNull Query query, @Nullable Integer limit) {
+        final int maxResults = Objects.isNull(limit) || limit < 0 ? Integer.MAX_VALUE : limit;
+        final List<Section> sections = query.getSections();
+        final List<RoaringBitmap> bitmaps = new ArrayList<>(sections.size());
+
+        for (final Section section : sections) {
+            final RoaringBitmap ids = this.resolveIds(section);
+
+            if (Objects.isNull(ids)) {
+                return this.execute(query, limit).iterator();
+            }
+
+            bitmaps.add(ids);
+        }
+
+        return new IdIterator(bitmaps, maxResults);
+    }
+
+    /**
+     * Count the references matching the query. When the indexes of every section provide id bitmaps the count is the
+     * cardinality of their union, otherwise the matching references are collected. Stored items are never looked up.
+     *
+     * @param query query to execute
+     * @return number of matching references
+     */
+    public int count(@NotNull Query query) {
+        final List<Section> sections = query.getSections();
+        RoaringBitmap union = null;
+        boolean copied = false;
+
+        for (final Section section : sections) {
+            final RoaringBitmap ids = this.resolveIds(section);
+
+            if (Objects.isNull(ids)) {
+                return this.execute(query).size();
+            }
+
+            if (Objects.isNull(union)) {
+                union = ids; // may be held by an index, copied before uniting with it
+            } else if (copied) {
+                union.orWith(ids);
+            } else {
+                union = union.or(ids);
+                copied = true;
+            }
+        }
+
+        return Objects.isNull(union) ? 0 : union.getCardinality();
+    }
+
+    private void intersect(@NotNull Section section, @NotNull Set<Reference<V>> results, int maxResults) {
+        final List<Set<Reference<V>>> postings = new ArrayList<>(section.getParts().size());
+
+        for (final SectionPart part : section.getParts()) {
+            final Set<Reference<V>> references = this.resolve(part);
+
+            if (references.isEmpty()) {
+                return; // nothing can satisfy every part, skip resolving the rest
+            }
+
+            postings.add(references);
+        }
+
+        if (postings.isEmpty()) {
+            return;
+        }
+
+        postings.sort(BY_SIZE);
+
+        final Set<Reference<V>> smallest = postings.get(0);
+
+        if (postings.size() == 1) {
+            this.collect(smallest, results, maxResults);
+            return;
+        }
+
+        for (final Reference<V> reference : smallest) {
+            if (this.matchesAll(reference, postings)) {
+                results.add(reference);
+
+                if (results.size() >= maxResults) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add references to the results until the limit is reached
+     *
+     * @return true if more results can be collected
+     */
+    private boolean collect(@NotNull Set<Reference<V>> references, @NotNull Set<Reference<V>> results, int maxResults) {
+        if (maxResults == Integer.MAX_VALUE) {
+            results.addAll(references);
+            return true;
+        }
+
+        for (final Reference<V> reference : references) {
+            if (results.size() >= maxResults) {
+                return false;
+            }
+
+            results.add(reference);
+        }
+
+        return results.size() < maxResults;
+    }
+
+    /**
+     * Combine the id bitmaps of every part of the section. Bitmaps of an AND section are intersected smallest first
+     * and the intersection stops once it is empty.
+     *
+     * @return matching ids, or null if an index of the section cannot provide ids
+     */
+    private @Nullable RoaringBitmap resolveIds(@NotNull Section section) {
+        if (section.getParts().size() == 1) {
+            return this.resolveIds(section.getParts().get(0));
+        }
+
+        final List<RoaringBitmap> bitmaps = new ArrayList<>(section.getParts().size());
+
+        for (final SectionPart part : section.getParts()) {
+            final RoaringBitmap ids = this.resolveIds(part);
+
+            if (Objects.isNull(ids)) {
+                return null;
+            }
+
+            bitmaps.add(ids);
+        }
+
+        if (section.getOperator() == SectionOperator.OR) {
+            final RoaringBitmap union = new RoaringBitmap();
+            bitmaps.forEach(union::orWith);
+            return union;
+        }
+
+        if (bitmaps.isEmpty()) {
+            return new RoaringBitmap();
+        }
+
+        bitmaps.sort(BY_CARDINALITY);
+
+        RoaringBitmap intersection = bitmaps.get(0);
+
+        for (int i = 1; i < bitmaps.size() && !intersection.isEmpty(); i++) {
+            intersection = intersection.and(bitmaps.get(i));
+        }
+
+        return intersection;
+    }
+
+    private @Nullable RoaringBitmap resolveIds(@NotNull SectionPart part) {
+        final AbstractIndex<V> index = this.indexManager.getIndex(part.getKey());
+        return Objects.isNull(index) ? new RoaringBitmap() : index.getIds(part.getOperator(), part.getValue(), part.getUpperValue());
+    }
+
+    /**
+     * Add the references of the ids to the results until the limit is reached
+     */
+    private void collect(@NotNull RoaringBitmap ids, @NotNull Set<Reference<V>> results, int maxResults) {
+        final PrimitiveIterator.OfInt iterator = ids.iterator();
+
+        while (iterator.hasNext() && results.size() < maxResults) {
+            final Reference<V> reference = this.referenceManager.getReference(iterator.nextInt());
+
+            if (Objects.nonNull(reference)) {
+                results.add(reference);
+            }
+        }
+    }
+
+    private boolean matchesAll(@NotNull Reference<V> reference, @NotNull List<Set<Reference<V>>> postings) {
+        for (int i = 1; i < postings.size(); i++) {
+            if (!postings.get(i).contains(reference)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private @NotNull Set<Reference<V>> resolve(@NotNull SectionPart part) {
+        final AbstractIndex<V> index = this.indexManager.getIndex(part.getKey());
+
+        if (Objects.isNull(index)) {
+            return Collections.emptySet();
+        }
+
+        return index.getReferences(part.getOperator(), part.getValue(), part.getUpperValue());
+    }
+
+    /**
+     * Iterates the ids of the sections in order, skipping ids already matched by an earlier section
+     */
+    private final class IdIterator implements Iterator<Reference<V>> {
+        private final List<RoaringBitmap> bitmaps;
+        private int remaining;
+        private int section;
+        private PrimitiveIterator.OfInt ids;
+        private @Nullable Reference<V> next;
+
+        private IdIterator(final List<RoaringBitmap> bitmaps, final int maxResults) {
+            this.bitmaps = bitmaps;
+            this.remaining = maxResults;
+            this.section = 0;
+            this.ids = bitmaps.isEmpty() ? new RoaringBitmap().iterator() : bitmaps.get(0).iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (Objects.isNull(this.next) && this.remaining > 0) {
+                if (!this.ids.hasNext()) {
+                    if (++this.section >= this.bitmaps.size()) {
+                        return false;
+                    }
+
+                    this.ids = this.bitmaps.get(this.section).iterator();
+                    continue;
+                }
+
+                final int id = this.ids.nextInt();
+
+                if (!this.matchedBefore(id)) {
+                    this.next = QueryPlanner.this.referenceManager.getReference(id);
+                }
+            }
+
+            return Objects.nonNull(this.next);
+        }
+
+        @Override
+        public Reference<V> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Reference<V> reference = this.next;
+            this.next = null;
+            this.remaining--;
+            return reference;
+        }
+
+        private boolean matchedBefore(final int id) {
+            for (int i = 0; i < this.section; i++) {
+                if (this.bitmaps.get(i).contains(id)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package net.tridentgames.membase.query.section;
 
 import java.util.Collections;
 import java.util.List;
+import net.tridentgames.membase.query.enums.IndexOperator;
 import org.jetbrains.annotations.NotNull;
 
 public class Section {
@@ -36,6 +37,7 @@ public class Section {
                 .append(part.getOperator().name())
                 .append(" ")
                 .append(part.getValue())
+                .append(part.getOperator() == IndexOperator.BETWEEN ? " and " + part.getUpperValue() : "")
                 .append(" ")
                 .append(this.operator.name())
                 .append(" ");
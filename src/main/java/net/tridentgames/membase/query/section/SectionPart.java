@@ -2,15 +2,22 @@ package net.tridentgames.membase.query.section;
 
 import net.tridentgames.membase.query.enums.IndexOperator;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class SectionPart {
     private final String key;
     private final Object value;
+    private final Object upperValue;
     private final IndexOperator operator;
 
     public SectionPart(@NotNull String key, @NotNull Object value, @NotNull IndexOperator operator) {
+        this(key, value, null, operator);
+    }
+
+    public SectionPart(@NotNull String key, @NotNull Object value, @Nullable Object upperValue, @NotNull IndexOperator operator) {
         this.key = key;
         this.value = value;
+        this.upperValue = upperValue;
         this.operator = operator;
     }
 
@@ -22,6 +29,10 @@ public class SectionPart {
         return this.value;
     }
 
+    public @Nullable Object getUpperValue() {
+        return this.upperValue;
+    }
+
     public @NotNull IndexOperator getOperator() {
         return this.operator;
     }
@@ -0,0 +1,342 @@
+package net.tridentgames.membase.reference;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.tridentgames.membase.identity.IdentityProvider;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An implementation of reference manager that may be used by several threads at once. Lookups never lock, and adding
+ * an item that is being added concurrently creates a single reference returned to every caller. Like
+ * {@link DefaultReferenceManager}, ids are handed out in insertion order and only reused once all ids were handed out.
+ * References are iterated in id order, so iteration follows insertion order and is weakly consistent: it never fails on
+ * concurrent changes and may or may not see them. Ids are resolved through chunks of slots, a chunk is dropped once all
+ * of its ids were handed out and released.
+ *
+ * @param <V> value type
+ */
+public class ConcurrentReferenceManager<V> implements ReferenceManager<V> {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final IdentityProvider identityProvider;
+    private final ReferenceFactory<V> referenceFactory;
+    private final Map<Object, Entry<V>> referenceMap;
+    private final ConcurrentSkipListMap<Integer, Entry<V>> insertionLog; // entries by id
+    private final AtomicInteger nextId;
+    private int reusedId; // guarded by the monitor
+    private volatile Chunk<V>[] idChunks; // only grown and changed under the monitor
+
+    public ConcurrentReferenceManager(final IdentityProvider identityProvider, final ReferenceFactory<V> referenceFactory) {
+        this.identityProvider = identityProvider;
+        this.referenceFactory = referenceFactory;
+        this.referenceMap = new ConcurrentHashMap<>();
+        this.insertionLog = new ConcurrentSkipListMap<>();
+        this.nextId = new AtomicInteger();
+        this.reusedId = 0;
+        this.idChunks = newChunks(0);
+    }
+
+    @Override
+    public Collection<Reference<V>> getReferences() {
+        return new ReferenceCollection();
+    }
+
+    @Override
+    public Optional<Reference<V>> findReference(final Object item) {
+        final Object identity = this.identityProvider.getIdentity(item);
+
+        if (Objects.isNull(identity)) {
+            return Optional.empty();
+        }
+
+        final Entry<V> entry = this.referenceMap.get(identity);
+        return Objects.isNull(entry) ? Optional.empty() : Optional.of(entry.reference);
+    }
+
+    @Override
+    public @Nullable Reference<V> getReference(final int id) {
+        final Chunk<V>[] chunks = this.idChunks;
+        final int index = id >>> CHUNK_SHIFT;
+        final Chunk<V> chunk = index < chunks.length ? chunks[index] : null;
+
+        return Objects.isNull(chunk) ? null : chunk.slots.get(id & CHUNK_MASK);
+    }
+
+    @Override
+    public int size() {
+        return this.referenceMap.size();
+    }
+
+    /**
+     * Remove all references. References added concurrently may survive the call and keep their ids.
+     */
+    @Override
+    public void clear() {
+        for (final Entry<V> entry : this.referenceMap.values()) {
+            if (this.referenceMap.remove(entry.identity, entry)) {
+                this.release(entry);
+            }
+        }
+    }
+
+    @Override
+    public @Nullable Reference<V> add(final V item) {
+        final Object identity = this.identityProvider.getIdentity(item);
+
+        if (Objects.isNull(identity)) {
+            return null;
+        }
+
+        final Entry<V> stored = this.referenceMap.get(identity);
+
+        if (Objects.nonNull(stored)) {
+            return stored.reference;
+        }
+
+        final int id = this.nextId();
+        final Entry<V> entry = new Entry<>(identity, this.referenceFactory.createReference(item, id));
+        this.setReference(id, entry.reference);
+
+        final Entry<V> raced = this.referenceMap.putIfAbsent(identity, entry);
+
+        if (Objects.nonNull(raced)) {
+            this.releaseId(id);
+            return raced.reference;
+        }
+
+        this.insertionLog.putIfAbsent(id, entry);
+
+        if (this.referenceMap.get(identity) != entry) {
+            this.insertionLog.remove(id, entry); // removed before it was logged
+        }
+
+        return entry.reference;
+    }
+
+    /**
+     * Create a copy holding the same references under the same ids, see {@link ReferenceManager#copy()}
+     */
+    @Override
+    public @NotNull ReferenceManager<V> copy() {
+        final ConcurrentReferenceManager<V> copy = new ConcurrentReferenceManager<>(this.identityProvider, this.referenceFactory);
+
+        synchronized (this) {
+            for (final Entry<V> entry : this.insertionLog.values()) {
+                copy.referenceMap.put(entry.identity, entry);
+                copy.insertionLog.put(entry.reference.getId(), entry);
+                copy.setReference(entry.reference.getId(), entry.reference);
+            }
+
+            copy.nextId.set(this.nextId.get()); // read after the entries, so it is above all of their ids
+            copy.reusedId = this.reusedId;
+        }
+
+        copy.countReleasedIds();
+        return copy;
+    }
+
+    @Override
+    public @Nullable Reference<V> remove(@NotNull Object item) {
+        final Object identity = this.identityProvider.getIdentity(item);
+
+        if (Objects.isNull(identity)) {
+            return null;
+        }
+
+        final Entry<V> entry = this.referenceMap.remove(identity);
+
+        if (Objects.isNull(entry)) {
+            return null;
+        }
+
+        this.release(entry);
+        return entry.reference;
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
+    /**
+     * Hand out the next id, once all ids were handed out look for one no reference holds anymore
+     */
+    private int nextId() {
+        final int id = this.nextId.getAndUpdate(next -> next == Integer.MAX_VALUE ? next : next + 1);
+
+        if (id < Integer.MAX_VALUE) {
+            return id;
+        }
+
+        synchronized (this) {
+            while (Objects.nonNull(this.getReference(this.reusedId))) {
+                this.reusedId = this.reusedId == Integer.MAX_VALUE - 1 ? 0 : this.reusedId + 1;
+            }
+
+            final int reusedId = this.reusedId;
+            this.reusedId = reusedId == Integer.MAX_VALUE - 1 ? 0 : reusedId + 1; // not handed out again by the next call
+            return reusedId;
+        }
+    }
+
+    private boolean isExhausted() {
+        return this.nextId.get() == Integer.MAX_VALUE;
+    }
+
+    private void release(final Entry<V> entry) {
+        this.insertionLog.remove(entry.reference.getId(), entry);
+        this.releaseId(entry.reference.getId());
+    }
+
+    private void releaseId(final int id) {
+        final Chunk<V> chunk = this.idChunks[id >>> CHUNK_SHIFT];
+        chunk.slots.set(id & CHUNK_MASK, null);
+
+        if (chunk.released.incrementAndGet() == CHUNK_SIZE) {
+            this.dropChunk(id >>> CHUNK_SHIFT, chunk);
+        }
+    }
+
+    private void setReference(final int id, final Reference<V> reference) {
+        final Chunk<V>[] chunks = this.idChunks;
+        final int index = id >>> CHUNK_SHIFT;
+        Chunk<V> chunk = index < chunks.length ? chunks[index] : null;
+
+        if (Objects.isNull(chunk)) {
+            chunk = this.createChunk(index);
+        }
+
+        chunk.slots.set(id & CHUNK_MASK, reference);
+    }
+
+    private synchronized @NotNull Chunk<V> createChunk(final int index) {
+        Chunk<V>[] chunks = this.idChunks;
+
+        if (index >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, Math.max(index + 1, chunks.length * 2));
+            this.idChunks = chunks;
+        }
+
+        if (Objects.isNull(chunks[index])) {
+            chunks[index] = new Chunk<>();
+        }
+
+        return chunks[index];
+    }
+
+    /**
+     * Drop a chunk all of whose ids were handed out and released. Once ids are reused, its ids may be handed out again,
+     * so chunks are kept from then on.
+     */
+    private synchronized void dropChunk(final int index, final Chunk<V> chunk) {
+        if (!this.isExhausted() && this.idChunks[index] == chunk) {
+            this.idChunks[index] = null;
+        }
+    }
+
+    /**
+     * Count the ids of each chunk that were handed out but are not held by a reference of this copy
+     */
+    private void countReleasedIds() {
+        if (this.isExhausted()) {
+            return; // chunks are no longer dropped
+        }
+
+        final Chunk<V>[] chunks = this.idChunks;
+        final int nextId = this.nextId.get();
+
+        for (int index = 0; index < chunks.length; index++) {
+            if (Objects.isNull(chunks[index])) {
+                continue;
+            }
+
+            int held = 0;
+
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                if (Objects.nonNull(chunks[index].slots.get(i))) {
+                    held++;
+                }
+            }
+
+            chunks[index].released.set(Math.min(CHUNK_SIZE, nextId - (index << CHUNK_SHIFT)) - held);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <V> Chunk<V>[] newChunks(final int length) {
+        return new Chunk[length];
+    }
+
+    private static final class Chunk<V> {
+        private final AtomicReferenceArray<Reference<V>> slots = new AtomicReferenceArray<>(CHUNK_SIZE);
+        private final AtomicInteger released = new AtomicInteger(); // ids released since the chunk was created
+    }
+
+    private static final class Entry<V> {
+        private final Object identity;
+        private final Reference<V> reference;
+
+        private Entry(final Object identity, final Reference<V> reference) {
+            this.identity = identity;
+            this.reference = reference;
+        }
+    }
+
+    /**
+     * Weakly consistent live view of the references in insertion order, removing through it releases the ids of
+     * removed references
+     */
+    private final class ReferenceCollection extends AbstractCollection<Reference<V>> {
+        @Override
+        public @NotNull Iterator<Reference<V>> iterator() {
+            final ConcurrentReferenceManager<V> manager = ConcurrentReferenceManager.this;
+            final Iterator<Entry<V>> iterator = manager.insertionLog.values().iterator();
+
+            return new Iterator<Reference<V>>() {
+                private Entry<V> previous;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Reference<V> next() {
+                    this.previous = iterator.next();
+                    return this.previous.reference;
+                }
+
+                @Override
+                public void remove() {
+                    if (Objects.isNull(this.previous)) {
+                        throw new IllegalStateException();
+                    }
+
+                    if (manager.referenceMap.remove(this.previous.identity, this.previous)) {
+                        manager.release(this.previous);
+                    }
+
+                    this.previous = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ConcurrentReferenceManager.this.referenceMap.size();
+        }
+    }
+}
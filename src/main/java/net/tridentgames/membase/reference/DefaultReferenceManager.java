@@ -1,40 +1,57 @@
 package net.tridentgames.membase.reference;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 
 import net.tridentgames.membase.identity.IdentityProvider;
+import net.tridentgames.membase.index.primitive.DenseIntMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
- * An implementation of reference manager that maintains unique references
+ * An implementation of reference manager that maintains unique references. Ids are handed out in insertion order and
+ * only reused once all ids were handed out, so indexes return items in the order they were added. Copies share their
+ * maps until either manager adds or removes a reference.
  *
  * @param <V> value type
  */
 public class DefaultReferenceManager<V> implements ReferenceManager<V> {
     private final IdentityProvider identityProvider;
     private final ReferenceFactory<V> referenceFactory;
-    private final Map<Object, Reference<V>> referenceMap;
+    private Map<Object, Reference<V>> referenceMap;
+    private final DenseIntMap<Reference<V>> idMap;
+    private int nextId;
+    private int reusedId;
+    private boolean shared; // the reference map is shared with a copy and copied before the next write
 
     public DefaultReferenceManager(final IdentityProvider identityProvider, final ReferenceFactory<V> referenceFactory) {
         this.identityProvider = identityProvider;
         this.referenceFactory = referenceFactory;
         this.referenceMap = new LinkedHashMap<>();
+        this.idMap = new DenseIntMap<>();
+        this.nextId = 0;
+        this.reusedId = 0;
     }
 
-    private DefaultReferenceManager(final IdentityProvider identityProvider, final ReferenceFactory<V> referenceFactory, final Map<Object, Reference<V>> referenceMap) {
-        this.identityProvider = identityProvider;
-        this.referenceFactory = referenceFactory;
-        this.referenceMap = new LinkedHashMap<>(referenceMap);
+    private DefaultReferenceManager(final DefaultReferenceManager<V> other) {
+        this.identityProvider = other.identityProvider;
+        this.referenceFactory = other.referenceFactory;
+        this.referenceMap = other.referenceMap;
+        this.idMap = other.idMap.copy();
+        this.nextId = other.nextId;
+        this.reusedId = other.reusedId;
+        this.shared = true;
     }
 
     @Override
     public Collection<Reference<V>> getReferences() {
-        return this.referenceMap.values();
+        return new ReferenceCollection();
     }
 
     @Override
@@ -48,6 +65,11 @@ public class DefaultReferenceManager<V> implements ReferenceManager<V> {
         return Optional.ofNullable(this.referenceMap.get(identity));
     }
 
+    @Override
+    public @Nullable Reference<V> getReference(final int id) {
+        return this.idMap.get(id);
+    }
+
     @Override
     public int size() {
         return this.referenceMap.size();
@@ -55,7 +77,16 @@ public class DefaultReferenceManager<V> implements ReferenceManager<V> {
 
     @Override
     public void clear() {
-        this.referenceMap.clear();
+        if (this.shared) {
+            this.referenceMap = new LinkedHashMap<>();
+            this.shared = false;
+        } else {
+            this.referenceMap.clear();
+        }
+
+        this.idMap.clear();
+        this.nextId = 0;
+        this.reusedId = 0;
     }
 
     @Override
@@ -72,14 +103,22 @@ public class DefaultReferenceManager<V> implements ReferenceManager<V> {
             return stored;
         }
 
-        final Reference<V> reference = this.referenceFactory.createReference(item);
+        this.unshare();
+
+        final int id = this.nextId();
+        final Reference<V> reference = this.referenceFactory.createReference(item, id);
         this.referenceMap.put(identity, reference);
+        this.idMap.put(id, reference);
         return reference;
     }
 
+    /**
+     * Create a copy sharing all references with this manager, see {@link DefaultReferenceManager}
+     */
     @Override
     public @NotNull ReferenceManager<V> copy() {
-        return new DefaultReferenceManager<>(this.identityProvider, this.referenceFactory, this.referenceMap);
+        this.shared = true;
+        return new DefaultReferenceManager<>(this);
     }
 
     @Override
@@ -90,6 +129,80 @@ public class DefaultReferenceManager<V> implements ReferenceManager<V> {
             return null;
         }
 
-        return this.referenceMap.remove(identity);
+        final Reference<V> reference = this.referenceMap.get(identity);
+
+        if (Objects.nonNull(reference)) {
+            this.unshare();
+            this.referenceMap.remove(identity);
+            this.idMap.remove(reference.getId());
+        }
+
+        return reference;
+    }
+
+    private void unshare() {
+        if (this.shared) {
+            this.referenceMap = new LinkedHashMap<>(this.referenceMap);
+            this.shared = false;
+        }
+    }
+
+    /**
+     * Hand out the next id, once all ids were handed out look for one no reference holds anymore
+     */
+    private int nextId() {
+        if (this.nextId < Integer.MAX_VALUE) {
+            return this.nextId++;
+        }
+
+        while (Objects.nonNull(this.idMap.get(this.reusedId))) {
+            this.reusedId = this.reusedId == Integer.MAX_VALUE - 1 ? 0 : this.reusedId + 1;
+        }
+
+        return this.reusedId;
+    }
+
+    /**
+     * Live view of the references, removing through it releases the ids of removed references
+     */
+    private final class ReferenceCollection extends AbstractCollection<Reference<V>> {
+        @Override
+        public @NotNull Iterator<Reference<V>> iterator() {
+            final DefaultReferenceManager<V> manager = DefaultReferenceManager.this;
+            final Map<Object, Reference<V>> referenceMap = manager.referenceMap;
+            final Iterator<Entry<Object, Reference<V>>> iterator = referenceMap.entrySet().iterator();
+
+            return new Iterator<Reference<V>>() {
+                private Entry<Object, Reference<V>> previous;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Reference<V> next() {
+                    this.previous = iterator.next();
+                    return this.previous.getValue();
+                }
+
+                @Override
+                public void remove() {
+                    if (manager.referenceMap == referenceMap && !manager.shared) {
+                        iterator.remove();
+                    } else {
+                        manager.unshare(); // keep iterating the shared map, remove from the copy replacing it
+                        manager.referenceMap.remove(this.previous.getKey());
+                    }
+
+                    manager.idMap.remove(this.previous.getValue().getId());
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return DefaultReferenceManager.this.referenceMap.size();
+        }
     }
 }
@@ -12,4 +12,13 @@ public interface Reference<V> {
      * @return referenced item
      */
     V get();
+
+    /**
+     * Get the id the store assigned to this reference. Ids are unique among the references a store holds and increase
+     * in insertion order, so indexes can keep their posting lists as bitmaps of ids and still return items in the order
+     * they were added. Ids of removed references are only reused once a store handed out all ids.
+     *
+     * @return non-negative id
+     */
+    int getId();
 }
@@ -10,7 +10,8 @@ public interface ReferenceFactory<V> {
      * Create a reference for the given object
      *
      * @param obj object to reference
+     * @param id  id assigned to the reference, see {@link Reference#getId()}
      * @return reference
      */
-    Reference<V> createReference(V obj);
+    Reference<V> createReference(V obj, int id);
 }
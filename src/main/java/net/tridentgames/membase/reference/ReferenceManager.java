@@ -27,6 +27,14 @@ public interface ReferenceManager<T> {
      */
     Optional<Reference<T>> findReference(Object item);
 
+    /**
+     * Get the reference holding the given id
+     *
+     * @param id reference id, see {@link Reference#getId()}
+     * @return reference or null if no reference holds the id
+     */
+    @Nullable Reference<T> getReference(int id);
+
     /**
      * Total number of references held by the manager
      *
@@ -62,4 +70,14 @@ public interface ReferenceManager<T> {
      * @return reference removed
      */
     @Nullable Reference<T> remove(Object item);
+
+    /**
+     * Whether {@link #findReference(Object)} may be called concurrently with any other method without external
+     * locking
+     *
+     * @return true if lookups are thread-safe
+     */
+    default boolean isConcurrent() {
+        return false;
+    }
 }
@@ -0,0 +1,703 @@
+package net.tridentgames.membase.type.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import net.tridentgames.membase.AbstractStore;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.index.ConcurrentIndex;
+import net.tridentgames.membase.index.Index;
+import net.tridentgames.membase.index.IndexDefinition;
+import net.tridentgames.membase.index.IndexException;
+import net.tridentgames.membase.index.KeyMapper;
+import net.tridentgames.membase.index.reducer.Reducer;
+import net.tridentgames.membase.listener.RemovalListener;
+import net.tridentgames.membase.listener.enums.RemovalType;
+import net.tridentgames.membase.query.Query;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Thread-safe store backed by given store, guarded by a read/write lock. Queries, lookups and other reads share the
+ * read lock and never wait for each other, only for writers. Unlike {@link SynchronizedStore}, the backing store
+ * must not modify itself while being read. Backing stores with a concurrent reference manager answer
+ * {@link #contains(Object)} without locking, see {@link AbstractStore#isConcurrentContains()}.
+ *
+ * @param <V> value type
+ */
+public class ConcurrentStore<V> implements Store<V> {
+    protected final Store<V> store;
+    protected final ReadWriteLock lock;
+    protected final Lock readLock;
+    protected final Lock writeLock;
+    private final boolean concurrentContains;
+
+    public ConcurrentStore(final Store<V> store) {
+        this(store, new ReentrantReadWriteLock());
+    }
+
+    public ConcurrentStore(final Store<V> store, final ReadWriteLock lock) {
+        if (store instanceof AbstractStore && ((AbstractStore<V>) store).isDeferReindex()) {
+            throw new IllegalArgumentException("Cannot wrap a store deferring reindexing, its reads reindex and must not share a read lock");
+        }
+
+        this.store = store;
+        this.lock = lock;
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+        this.concurrentContains = store instanceof AbstractStore && ((AbstractStore<V>) store).isConcurrentContains();
+    }
+
+    @Override
+    public @Nullable Index<V> getIndex(final String indexName) {
+        final Index<V> index;
+
+        this.readLock.lock();
+
+        try {
+            final Index<V> found = this.store.getIndex(indexName);
+            index = Objects.isNull(found) ? null : new ConcurrentIndex<>(found, this.lock);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public Collection<Index<V>> getIndexes() {
+        final List<Index<V>> indexes;
+
+        this.readLock.lock();
+
+        try {
+            indexes = this.store.getIndexes().stream().map(index -> new ConcurrentIndex<>(index, this.lock)).collect(Collectors.toList());
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return indexes;
+    }
+
+    @Override
+    public void removeAllIndexes() {
+        this.writeLock.lock();
+
+        try {
+            this.store.removeAllIndexes();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Optional<Index<V>> findIndex(final String indexName) {
+        final Optional<Index<V>> optionalIndex;
+
+        this.readLock.lock();
+
+        try {
+            optionalIndex = this.store.findIndex(indexName).map(index -> new ConcurrentIndex<>(index, this.lock));
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return optionalIndex;
+    }
+
+    @Override
+    public boolean removeIndex(final Index<V> index) {
+        final boolean removed;
+
+        this.writeLock.lock();
+
+        try {
+            if (index instanceof ConcurrentIndex) {
+                final ConcurrentIndex<V> concurrentIndex = (ConcurrentIndex<V>) index;
+
+                removed = this.store.removeIndex(concurrentIndex.getIndex());
+            } else {
+                removed = this.store.removeIndex(index);
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return removed;
+    }
+
+    @Override
+    public boolean removeIndex(final String indexName) {
+        final boolean removed;
+
+        this.writeLock.lock();
+
+        try {
+            removed = this.store.removeIndex(indexName);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return removed;
+    }
+
+    @Override
+    public <K> Index<V> index(final String indexName, final IndexDefinition<K, V> indexDefinition) throws IndexException {
+        final Index<V> index;
+
+        this.writeLock.lock();
+
+        try {
+            index = new ConcurrentIndex<>(this.store.index(indexName, indexDefinition), this.lock);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public <K> Index<V> index(final IndexDefinition<K, V> indexDefinition) throws IndexException {
+        final Index<V> index;
+
+        this.writeLock.lock();
+
+        try {
+            index = new ConcurrentIndex<>(this.store.index(indexDefinition), this.lock);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public <K> Index<V> index(final String indexName, final KeyMapper<K, V> keyMapper) throws IndexException {
+        final Index<V> index;
+
+        this.writeLock.lock();
+
+        try {
+            index = new ConcurrentIndex<>(this.store.index(indexName, keyMapper), this.lock);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public <K> Index<V> index(final KeyMapper<K, V> keyMapper) throws IndexException {
+        final Index<V> index;
+
+        this.writeLock.lock();
+
+        try {
+            index = new ConcurrentIndex<>(this.store.index(keyMapper), this.lock);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public <K> Index<V> index(final String indexName, final KeyMapper<K, V> keyMapper, final Reducer<K, V> reducer) throws IndexException {
+        final Index<V> index;
+
+        this.writeLock.lock();
+
+        try {
+            index = new ConcurrentIndex<>(this.store.index(indexName, keyMapper, reducer), this.lock);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public <K> Index<V> index(final KeyMapper<K, V> keyMapper, final Reducer<K, V> reducer) throws IndexException {
+        final Index<V> index;
+
+        this.writeLock.lock();
+
+        try {
+            index = new ConcurrentIndex<>(this.store.index(keyMapper, reducer), this.lock);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return index;
+    }
+
+    @Override
+    public List<V> get(final Query query, @Nullable final Integer limit) {
+        final List<V> results;
+
+        this.readLock.lock();
+
+        try {
+            results = this.store.get(query, limit);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return results;
+    }
+
+    @Override
+    public int get(final Query query, @Nullable final Integer limit, final Collection<? super V> results) {
+        final int count;
+
+        this.readLock.lock();
+
+        try {
+            count = this.store.get(query, limit, results);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return count;
+    }
+
+    @Override
+    public int count(final Query query) {
+        final int count;
+
+        this.readLock.lock();
+
+        try {
+            count = this.store.count(query);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean exists(final Query query) {
+        final boolean result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.store.exists(query);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<V> remove(@NotNull Query query) {
+        final List<V> removed;
+
+        this.writeLock.lock();
+
+        try {
+            removed = this.store.remove(query);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return removed;
+    }
+
+    @Override
+    public List<V> get(final Query query) {
+        final List<V> results;
+
+        this.readLock.lock();
+
+        try {
+            results = this.store.get(query);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return results;
+    }
+
+    @Override
+    public V getFirst(final Query query) {
+        final V result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.store.getFirst(query);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public Optional<V> findFirst(final Query query) {
+        final Optional<V> result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.store.findFirst(query);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void reindex() {
+        this.writeLock.lock();
+
+        try {
+            this.store.reindex();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void reindex(final Collection<V> items) {
+        this.writeLock.lock();
+
+        try {
+            this.store.reindex(items);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void reindex(final V item) {
+        this.writeLock.lock();
+
+        try {
+            this.store.reindex(item);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void flushReindex() {
+        this.writeLock.lock();
+
+        try {
+            this.store.flushReindex();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Store<V> copy() {
+        final Store<V> copy;
+
+        this.writeLock.lock(); // copying marks the references and indexes of this store as shared
+
+        try {
+            copy = this.store.copy();
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return copy;
+    }
+
+    @Override
+    public Map<RemovalType, Set<RemovalListener<V>>> getRemovalListeners() {
+        return this.store.getRemovalListeners();
+    }
+
+    @Override
+    public int size() {
+        final int size;
+
+        this.readLock.lock();
+
+        try {
+            size = this.store.size();
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        final boolean empty;
+
+        this.readLock.lock();
+
+        try {
+            empty = this.store.isEmpty();
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return empty;
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        if (this.concurrentContains) {
+            return this.store.contains(obj);
+        }
+
+        final boolean contains;
+
+        this.readLock.lock();
+
+        try {
+            contains = this.store.contains(obj);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return contains;
+    }
+
+    /**
+     * Iterate over a snapshot of the items held when this method was called. Removing through the iterator removes
+     * the item from this store.
+     *
+     * @return snapshot iterator
+     */
+    @Override
+    public Iterator<V> iterator() {
+        final List<V> snapshot;
+
+        this.readLock.lock();
+
+        try {
+            snapshot = new ArrayList<>(this.store);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return new SnapshotIterator(snapshot.iterator());
+    }
+
+    @Override
+    public Object[] toArray() {
+        final Object[] array;
+
+        this.readLock.lock();
+
+        try {
+            array = this.store.toArray();
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return array;
+    }
+
+    @Override
+    public <T1> T1[] toArray(final T1[] array) {
+        final T1[] toArray;
+
+        this.readLock.lock();
+
+        try {
+            toArray = this.store.toArray(array);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return toArray;
+    }
+
+    @Override
+    public boolean add(final V item) {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.add(item);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean remove(final Object obj) {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.remove(obj);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean containsAll(final Collection<?> collection) {
+        final boolean result;
+
+        this.readLock.lock();
+
+        try {
+            result = this.store.containsAll(collection);
+        } finally {
+            this.readLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends V> collection) {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.addAll(collection);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean addAll(final V[] items) throws IndexException {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.addAll(items);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> collection) {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.removeAll(collection);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super V> filter) {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.removeIf(filter);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> collection) {
+        final boolean result;
+
+        this.writeLock.lock();
+
+        try {
+            result = this.store.retainAll(collection);
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        this.writeLock.lock();
+
+        try {
+            this.store.clear();
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    public Store<V> getStore() {
+        return this.store;
+    }
+
+    @Override
+    public Store<V> concurrentStore() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return this.store.toString();
+    }
+
+    private class SnapshotIterator implements Iterator<V> {
+        private final Iterator<V> iterator;
+        private V previous;
+
+        SnapshotIterator(final Iterator<V> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.iterator.hasNext();
+        }
+
+        @Override
+        public V next() {
+            this.previous = this.iterator.next();
+            return this.previous;
+        }
+
+        @Override
+        public void remove() {
+            if (Objects.isNull(this.previous)) {
+                throw new IllegalStateException();
+            }
+
+            ConcurrentStore.this.remove(this.previous);
+            this.previous = null;
+        }
+    }
+}
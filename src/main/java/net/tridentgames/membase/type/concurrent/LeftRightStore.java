@@ -0,0 +1,574 @@
+package net.tridentgames.membase.type.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import net.tridentgames.membase.AbstractStore;
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.index.Index;
+import net.tridentgames.membase.index.IndexDefinition;
+import net.tridentgames.membase.index.IndexException;
+import net.tridentgames.membase.index.KeyMapper;
+import net.tridentgames.membase.index.reducer.Reducer;
+import net.tridentgames.membase.listener.RemovalListener;
+import net.tridentgames.membase.listener.enums.RemovalType;
+import net.tridentgames.membase.query.Query;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+/**
+ * Thread-safe store whose readers never lock and never wait. Two identical instances of the backing store are kept,
+ * readers always run against the instance that is not being written to, so every query sees all of its indexes in the
+ * same consistent state. Writers are serialized, apply each change to the idle instance, publish it to readers, wait
+ * for readers still using the other instance to leave and then repeat the change there (Left-Right concurrency
+ * control).
+ * <p>
+ * Stored items are shared between both instances, only references and indexes are held twice. Writes run twice, so
+ * they must be deterministic: predicates passed to {@link #removeIf(Predicate)} are evaluated once per instance.
+ * Use {@link #snapshot()} to run several queries against the same version of the store.
+ *
+ * @param <V> value type
+ */
+public class LeftRightStore<V> implements Store<V> {
+    private final Store<V> left;
+    private final Store<V> right;
+    private final ReadIndicator[] readIndicators;
+    private final Lock writeLock;
+    private volatile boolean readLeft;
+    private volatile int versionIndex;
+
+    public LeftRightStore(final Store<V> store) {
+        if (store instanceof AbstractStore && ((AbstractStore<V>) store).isDeferReindex()) {
+            throw new IllegalArgumentException("Cannot wrap a store deferring reindexing, its reads reindex and must not run lock-free");
+        }
+
+        this.left = store;
+        this.right = store.copy();
+        this.readIndicators = new ReadIndicator[]{new ReadIndicator(), new ReadIndicator()};
+        this.writeLock = new ReentrantLock();
+        this.readLeft = true;
+        this.versionIndex = 0;
+    }
+
+    /**
+     * Create an immutable copy of the current version of this store. The copy is not affected by later writes. Copying
+     * marks the copied instance as shared, so like a write it waits for a write in progress, but not for readers.
+     *
+     * @return immutable copy
+     */
+    public @NotNull Store<V> snapshot() {
+        return this.copy().immutableStore();
+    }
+
+    @Override
+    public <K> Index<V> index(final String indexName, final IndexDefinition<K, V> indexDefinition) throws IndexException {
+        this.write(store -> store.index(indexName, indexDefinition));
+        return new LeftRightIndex(indexName);
+    }
+
+    @Override
+    public <K> Index<V> index(final IndexDefinition<K, V> indexDefinition) throws IndexException {
+        return this.index(UUID.randomUUID().toString(), indexDefinition); // both instances need the same name
+    }
+
+    @Override
+    public <K> Index<V> index(final String indexName, final KeyMapper<K, V> keyMapper) throws IndexException {
+        return this.index(indexName, IndexDefinition.withKeyMapping(keyMapper));
+    }
+
+    @Override
+    public <K> Index<V> index(final String indexName, final KeyMapper<K, V> keyMapper, final Reducer<K, V> reducer) throws IndexException {
+        return this.index(indexName, IndexDefinition.withKeyMapping(keyMapper).withReducer(reducer));
+    }
+
+    @Override
+    public <K> Index<V> index(final KeyMapper<K, V> keyMapper, final Reducer<K, V> reducer) throws IndexException {
+        return this.index(IndexDefinition.withKeyMapping(keyMapper).withReducer(reducer));
+    }
+
+    @Override
+    public <K> Index<V> index(final KeyMapper<K, V> keyMapper) throws IndexException {
+        return this.index(IndexDefinition.withKeyMapping(keyMapper));
+    }
+
+    @Override
+    public List<V> get(final Query query, @Nullable final Integer limit) {
+        return this.read(store -> store.get(query, limit));
+    }
+
+    @Override
+    public List<V> remove(@NotNull Query query) {
+        return this.write(store -> store.remove(query));
+    }
+
+    @Override
+    public List<V> get(final Query query) {
+        return this.read(store -> store.get(query));
+    }
+
+    @Override
+    public V getFirst(final Query query) {
+        return this.read(store -> store.getFirst(query));
+    }
+
+    @Override
+    public int count(final Query query) {
+        return this.read(store -> store.count(query));
+    }
+
+    @Override
+    public boolean exists(final Query query) {
+        return this.read(store -> store.exists(query));
+    }
+
+    @Override
+    public Optional<V> findFirst(final Query query) {
+        return this.read(store -> store.findFirst(query));
+    }
+
+    @Override
+    public @Nullable Index<V> getIndex(final String indexName) {
+        final boolean exists = this.read(store -> Objects.nonNull(store.getIndex(indexName)));
+        return exists ? new LeftRightIndex(indexName) : null;
+    }
+
+    @Override
+    public Collection<Index<V>> getIndexes() {
+        return this.read(store -> store.getIndexes()
+            .stream()
+            .map(index -> (Index<V>) new LeftRightIndex(index.getName()))
+            .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void removeAllIndexes() {
+        this.write(store -> {
+            store.removeAllIndexes();
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<Index<V>> findIndex(final String indexName) {
+        return Optional.ofNullable(this.getIndex(indexName));
+    }
+
+    @Override
+    public boolean removeIndex(final String indexName) {
+        return this.write(store -> store.removeIndex(indexName));
+    }
+
+    @Override
+    public boolean removeIndex(final Index<V> index) {
+        return this.removeIndex(index.getName()); // each instance holds its own index, match them by name
+    }
+
+    @Override
+    public void reindex() throws IndexException {
+        this.write(store -> {
+            store.reindex();
+            return null;
+        });
+    }
+
+    @Override
+    public void reindex(final Collection<V> items) throws IndexException {
+        this.write(store -> {
+            store.reindex(items);
+            return null;
+        });
+    }
+
+    @Override
+    public void reindex(final V item) throws IndexException {
+        this.write(store -> {
+            store.reindex(item);
+            return null;
+        });
+    }
+
+    @Override
+    public void flushReindex() throws IndexException {
+        this.write(store -> {
+            store.flushReindex();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean add(final V item) throws IndexException {
+        return this.write(store -> store.add(item));
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends V> items) throws IndexException {
+        return this.write(store -> store.addAll(items));
+    }
+
+    @Override
+    public boolean addAll(final V[] items) throws IndexException {
+        return this.write(store -> store.addAll(items));
+    }
+
+    @Override
+    public boolean remove(final Object obj) {
+        return this.write(store -> store.remove(obj));
+    }
+
+    @Override
+    public boolean removeAll(@NotNull Collection<?> collection) {
+        return this.write(store -> store.removeAll(collection));
+    }
+
+    @Override
+    public boolean removeIf(@NotNull Predicate<? super V> filter) {
+        return this.write(store -> store.removeIf(filter));
+    }
+
+    @Override
+    public boolean retainAll(@NotNull Collection<?> collection) {
+        return this.write(store -> store.retainAll(collection));
+    }
+
+    @Override
+    public void clear() {
+        this.write(store -> {
+            store.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Copy the instance readers are not using, see {@link #snapshot()}
+     */
+    @Override
+    public @NotNull Store<V> copy() {
+        final Store<V> copy;
+
+        this.writeLock.lock();
+
+        try {
+            copy = (this.readLeft ? this.right : this.left).copy(); // holds the same items, readers only return with the next write
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        return copy;
+    }
+
+    @Override
+    public Map<RemovalType, Set<RemovalListener<V>>> getRemovalListeners() {
+        return this.left.getRemovalListeners();
+    }
+
+    @Override
+    public int size() {
+        return this.read(Store::size);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.read(Store::isEmpty);
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        return this.read(store -> store.contains(obj));
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> collection) {
+        return this.read(store -> store.containsAll(collection));
+    }
+
+    /**
+     * Iterate over a snapshot of the items held when this method was called. Removing through the iterator removes
+     * the item from this store.
+     *
+     * @return snapshot iterator
+     */
+    @Override
+    public @NotNull Iterator<V> iterator() {
+        final Iterator<V> iterator = this.read(store -> new ArrayList<>(store)).iterator();
+
+        return new Iterator<V>() {
+            private V previous;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public V next() {
+                this.previous = iterator.next();
+                return this.previous;
+            }
+
+            @Override
+            public void remove() {
+                if (Objects.isNull(this.previous)) {
+                    throw new IllegalStateException();
+                }
+
+                LeftRightStore.this.remove(this.previous);
+                this.previous = null;
+            }
+        };
+    }
+
+    @Override
+    public Object @NotNull [] toArray() {
+        return this.read(Store::toArray);
+    }
+
+    @Override
+    public <T> T @NotNull [] toArray(final T @NotNull [] array) {
+        return this.read(store -> store.toArray(array));
+    }
+
+    @Override
+    public Store<V> leftRightStore() {
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return this.read(String::valueOf);
+    }
+
+    private <R> R read(final Function<Store<V>, R> reader) {
+        final ReadIndicator readIndicator = this.readIndicators[this.versionIndex];
+        readIndicator.arrive();
+
+        try {
+            return reader.apply(this.readLeft ? this.left : this.right);
+        } finally {
+            readIndicator.depart();
+        }
+    }
+
+    private <R> R write(final Function<Store<V>, R> writer) {
+        this.writeLock.lock();
+
+        try {
+            final boolean readLeft = this.readLeft;
+            R result = null;
+            RuntimeException exception = null;
+
+            try {
+                result = writer.apply(readLeft ? this.right : this.left);
+            } catch (final RuntimeException e) {
+                exception = e; // the change may be partially applied, mirror it before rethrowing
+            }
+
+            this.readLeft = !readLeft;
+            this.awaitReaders();
+
+            try {
+                writer.apply(readLeft ? this.left : this.right);
+            } catch (final RuntimeException e) {
+                if (Objects.isNull(exception)) {
+                    exception = e;
+                }
+            }
+
+            if (Objects.nonNull(exception)) {
+                throw exception;
+            }
+
+            return result;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * Wait until no reader can still be using the instance readers were just moved away from
+     */
+    private void awaitReaders() {
+        final int previousVersionIndex = this.versionIndex;
+        final int nextVersionIndex = 1 - previousVersionIndex;
+
+        while (!this.readIndicators[nextVersionIndex].isEmpty()) {
+            Thread.yield();
+        }
+
+        this.versionIndex = nextVersionIndex;
+
+        while (!this.readIndicators[previousVersionIndex].isEmpty()) {
+            Thread.yield();
+        }
+    }
+
+    private static final class ReadIndicator {
+        private final LongAdder ingress = new LongAdder();
+        private final LongAdder egress = new LongAdder();
+
+        void arrive() {
+            this.ingress.increment();
+        }
+
+        void depart() {
+            this.egress.increment();
+        }
+
+        boolean isEmpty() {
+            final long departed = this.egress.sum(); // read departures first, readers never depart more than arrive
+            return departed == this.ingress.sum();
+        }
+    }
+
+    /**
+     * Index resolved by name against whichever instance readers are using
+     */
+    private final class LeftRightIndex implements Index<V> {
+        private final String name;
+
+        private LeftRightIndex(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        public @NotNull Optional<V> findFirst(final Object key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? Optional.<V>empty() : index.findFirst(key);
+            });
+        }
+
+        @Override
+        public @NotNull Optional<V> findFirstInt(final int key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? Optional.<V>empty() : index.findFirstInt(key);
+            });
+        }
+
+        @Override
+        public @NotNull Optional<V> findFirstLong(final long key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? Optional.<V>empty() : index.findFirstLong(key);
+            });
+        }
+
+        @Override
+        public List<V> get(final Object key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? new ArrayList<V>() : index.get(key);
+            });
+        }
+
+        @Override
+        public List<V> getInt(final int key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? new ArrayList<V>() : index.getInt(key);
+            });
+        }
+
+        @Override
+        public List<V> getLong(final long key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? new ArrayList<V>() : index.getLong(key);
+            });
+        }
+
+        @Override
+        public int get(final Object key, final Collection<? super V> results) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? 0 : index.get(key, results);
+            });
+        }
+
+        @Override
+        public void forEach(final Object key, final Consumer<? super V> action) {
+            LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+
+                if (Objects.nonNull(index)) {
+                    index.forEach(key, action);
+                }
+
+                return null;
+            });
+        }
+
+        @Override
+        public int count(final Object key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? 0 : index.count(key);
+            });
+        }
+
+        @Override
+        public boolean contains(final Object key) {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.nonNull(index) && index.contains(key);
+            });
+        }
+
+        @Override
+        public @NotNull @Unmodifiable Set<Object> keys() {
+            return LeftRightStore.this.read(store -> {
+                final Index<V> index = store.getIndex(this.name);
+                return Objects.isNull(index) ? Collections.emptySet() : index.keys();
+            });
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            if (Objects.isNull(other) || this.getClass() != other.getClass()) {
+                return false;
+            }
+
+            final LeftRightStore<?>.LeftRightIndex that = (LeftRightStore<?>.LeftRightIndex) other;
+            return this.getStore() == that.getStore() && this.name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(LeftRightStore.this, this.name);
+        }
+
+        @Override
+        public String toString() {
+            return "Index[name='" + this.name + "']";
+        }
+
+        private LeftRightStore<V> getStore() {
+            return LeftRightStore.this;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import net.tridentgames.membase.AbstractStore;
 import net.tridentgames.membase.Store;
 import net.tridentgames.membase.index.Index;
 import net.tridentgames.membase.index.IndexDefinition;
@@ -33,10 +34,12 @@ public class SynchronizedStore<V> implements Store<V> {
     protected final Store<V> store;
     protected final Map<RemovalType, Set<RemovalListener<V>>> removalListeners = new ConcurrentHashMap<>();
     protected final Object mutex;
+    private final boolean concurrentContains;
 
     public SynchronizedStore(final Store<V> store) {
         this.store = store;
         this.mutex = this;
+        this.concurrentContains = store instanceof AbstractStore && ((AbstractStore<V>) store).isConcurrentContains();
     }
 
     @Override
@@ -185,6 +188,39 @@ public class SynchronizedStore<V> implements Store<V> {
         return results;
     }
 
+    @Override
+    public int get(final Query query, @Nullable final Integer limit, final Collection<? super V> results) {
+        final int count;
+
+        synchronized (this.mutex) {
+            count = this.store.get(query, limit, results);
+        }
+
+        return count;
+    }
+
+    @Override
+    public int count(final Query query) {
+        final int count;
+
+        synchronized (this.mutex) {
+            count = this.store.count(query);
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean exists(final Query query) {
+        final boolean result;
+
+        synchronized (this.mutex) {
+            result = this.store.exists(query);
+        }
+
+        return result;
+    }
+
     @Override
     public List<V> remove(@NotNull Query query) {
         final List<V> removed;
@@ -250,6 +286,13 @@ public class SynchronizedStore<V> implements Store<V> {
         }
     }
 
+    @Override
+    public void flushReindex() {
+        synchronized (this.mutex) {
+            this.store.flushReindex();
+        }
+    }
+
     @Override
     public Store<V> copy() {
         final Store<V> copy;
@@ -290,6 +333,10 @@ public class SynchronizedStore<V> implements Store<V> {
 
     @Override
     public boolean contains(final Object obj) {
+        if (this.concurrentContains) {
+            return this.store.contains(obj);
+        }
+
         final boolean contains;
 
         synchronized (this.mutex) {
@@ -0,0 +1,85 @@
+package net.tridentgames.membase.type.expiring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Snapshot of how promptly an expiring store removes expired items
+ */
+public class ExpirationStats {
+    private final long evictionCount;
+    private final long latencyCount;
+    private final long totalLatency;
+    private final long maxLatency;
+    private final int pendingCount;
+
+    public ExpirationStats(final long evictionCount, final long latencyCount, final long totalLatency, final long maxLatency, final int pendingCount) {
+        this.evictionCount = evictionCount;
+        this.latencyCount = latencyCount;
+        this.totalLatency = totalLatency;
+        this.maxLatency = maxLatency;
+        this.pendingCount = pendingCount;
+    }
+
+    /**
+     * @return number of items removed because they expired
+     */
+    public long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    /**
+     * @return average time in milliseconds between an item's expiration time and its removal
+     */
+    public double getAverageLatency() {
+        return this.latencyCount == 0 ? 0 : (double) this.totalLatency / this.latencyCount;
+    }
+
+    /**
+     * @return longest time in milliseconds between an item's expiration time and its removal
+     */
+    public long getMaxLatency() {
+        return this.maxLatency;
+    }
+
+    /**
+     * @return number of due items the sweep in progress has yet to check
+     */
+    public int getPendingCount() {
+        return this.pendingCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ExpirationStats{" +
+            "evictionCount=" + this.evictionCount +
+            ", averageLatency=" + this.getAverageLatency() +
+            ", maxLatency=" + this.maxLatency +
+            ", pendingCount=" + this.pendingCount +
+            '}';
+    }
+
+    static class Recorder {
+        private final LongAdder evictionCount = new LongAdder();
+        private final LongAdder latencyCount = new LongAdder();
+        private final LongAdder totalLatency = new LongAdder();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        void recordEviction() {
+            this.evictionCount.increment();
+        }
+
+        void recordLatency(final long latency) {
+            final long clampedLatency = Math.max(0, latency);
+
+            this.latencyCount.increment();
+            this.totalLatency.add(clampedLatency);
+            this.maxLatency.accumulateAndGet(clampedLatency, Math::max);
+        }
+
+        @NotNull ExpirationStats snapshot(final int pendingCount) {
+            return new ExpirationStats(this.evictionCount.sum(), this.latencyCount.sum(), this.totalLatency.sum(), this.maxLatency.get(), pendingCount);
+        }
+    }
+}
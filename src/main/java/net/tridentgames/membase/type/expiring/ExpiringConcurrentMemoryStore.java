@@ -1,42 +1,142 @@
 package net.tridentgames.membase.type.expiring;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import net.tridentgames.membase.listener.RemovalDispatchStats;
+import net.tridentgames.membase.listener.RemovalListener;
+import net.tridentgames.membase.listener.enums.OverflowPolicy;
+import net.tridentgames.membase.listener.enums.RemovalType;
 import net.tridentgames.membase.policy.Policy;
 import net.tridentgames.membase.type.concurrent.SynchronizedStore;
+import net.tridentgames.membase.type.expiring.thread.ExpirationScheduler;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class ExpiringConcurrentMemoryStore<V> extends SynchronizedStore<V> implements ExpiringStore<V> {
-    private ExpiringConcurrentMemoryStore() {
-        super(new ExpiringMemoryStore<>());
+    private volatile int batchSize = Integer.MAX_VALUE;
+    private volatile long batchNanos = Long.MAX_VALUE;
+
+    public ExpiringConcurrentMemoryStore(@NotNull ExpirationScheduler expirationScheduler) {
+        super(new ExpiringMemoryStore<>(expirationScheduler));
+
+        this.backing().setSweep(this::invalidate); // sweep under the mutex
+    }
+
+    public ExpiringConcurrentMemoryStore() {
+        this(ExpirationScheduler.getDefault());
     }
 
     @Override
     public void addPolicy(@NotNull Policy<V, ?> policy) {
-        final ExpiringMemoryStore<V> expiringMemoryStore = (ExpiringMemoryStore) this.store;
-
         synchronized (this.mutex) {
-            expiringMemoryStore.addPolicy(policy);
+            this.backing().addPolicy(policy);
         }
     }
 
     @Override
     public @NotNull List<Policy<V, ?>> getExpiryPolicies() {
-        final ExpiringMemoryStore<V> expiringMemoryStore = (ExpiringMemoryStore) this.store;
         List<Policy<V, ?>> result;
 
         synchronized (this.mutex) {
-            result = expiringMemoryStore.getExpiryPolicies();
+            result = this.backing().getExpiryPolicies();
         }
 
         return result;
     }
 
+    /**
+     * Sweep expired items in batches, releasing the lock between them so reads are not stalled by large sweeps.
+     * Expired items are removed less promptly, see {@link #getExpirationStats()}.
+     *
+     * @param maxItems maximum number of items to check per batch
+     * @param maxTime  maximum time to spend per batch
+     * @param unit     unit of maxTime
+     */
+    public void setExpirationBatch(final int maxItems, final long maxTime, @NotNull TimeUnit unit) {
+        if (maxItems < 1 || maxTime < 1) {
+            throw new IllegalArgumentException("Batches must allow at least one item and one " + unit);
+        }
+
+        this.batchSize = maxItems;
+        this.batchNanos = unit.toNanos(maxTime);
+    }
+
     @Override
     public void invalidate() {
-        final ExpiringMemoryStore<V> expiringMemoryStore = (ExpiringMemoryStore) this.store;
+        if (this.batchSize == Integer.MAX_VALUE && this.batchNanos == Long.MAX_VALUE) {
+            synchronized (this.mutex) {
+                this.backing().invalidate();
+            }
+
+            return;
+        }
+
+        boolean complete = false;
+
+        while (!complete) {
+            synchronized (this.mutex) {
+                complete = this.backing().invalidate(this.batchSize, this.batchNanos, TimeUnit.NANOSECONDS);
+            }
+
+            Thread.yield(); // let waiting readers in
+        }
+    }
+
+    @Override
+    public @NotNull ExpirationStats getExpirationStats() {
+        ExpirationStats result;
+
+        synchronized (this.mutex) {
+            result = this.backing().getExpirationStats();
+        }
+
+        return result;
+    }
 
+    @Override
+    public void setRemovalDispatch(@NotNull Executor executor, final int capacity, final int batchSize, @NotNull OverflowPolicy overflowPolicy) {
+        synchronized (this.mutex) {
+            this.backing().setRemovalDispatch(executor, capacity, batchSize, overflowPolicy);
+        }
+    }
+
+    @Override
+    public @Nullable RemovalDispatchStats getRemovalDispatchStats() {
+        RemovalDispatchStats result;
+
+        synchronized (this.mutex) {
+            result = this.backing().getRemovalDispatchStats();
+        }
+
+        return result;
+    }
+
+    /**
+     * Get the listeners of the backing store, which notifies them
+     */
+    @Override
+    public Map<RemovalType, Set<RemovalListener<V>>> getRemovalListeners() {
+        return this.store.getRemovalListeners();
+    }
+
+    @Override
+    public void scheduleSweeps() {
+        synchronized (this.mutex) {
+            this.backing().scheduleSweeps();
+        }
+    }
+
+    @Override
+    public void close() {
         synchronized (this.mutex) {
-            expiringMemoryStore.invalidate();
+            this.backing().close();
         }
     }
+
+    private @NotNull ExpiringMemoryStore<V> backing() {
+        return (ExpiringMemoryStore<V>) this.store; // created in the constructor
+    }
 }
\ No newline at end of file
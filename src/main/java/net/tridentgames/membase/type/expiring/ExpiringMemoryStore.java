@@ -1,53 +1,86 @@
 package net.tridentgames.membase.type.expiring;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import net.tridentgames.membase.AbstractStore;
 import net.tridentgames.membase.Store;
 import net.tridentgames.membase.identity.DefaultIdentityProvider;
+import net.tridentgames.membase.index.IndexExecutor;
 import net.tridentgames.membase.index.IndexManager;
 import net.tridentgames.membase.index.ReferenceIndexManager;
+import net.tridentgames.membase.listener.RemovalDispatchStats;
+import net.tridentgames.membase.listener.RemovalDispatcher;
 import net.tridentgames.membase.listener.RemovalListener;
+import net.tridentgames.membase.listener.enums.OverflowPolicy;
 import net.tridentgames.membase.listener.enums.RemovalType;
 import net.tridentgames.membase.memory.MemoryReferenceFactory;
 import net.tridentgames.membase.policy.type.TimedExpiringPolicy;
 import net.tridentgames.membase.query.Query;
-import net.tridentgames.membase.query.section.Section;
-import net.tridentgames.membase.query.section.SectionOperator;
-import net.tridentgames.membase.query.section.SectionPart;
 import net.tridentgames.membase.reference.DefaultReferenceManager;
-import net.tridentgames.membase.reference.Reference;
 import net.tridentgames.membase.reference.ReferenceManager;
 import net.tridentgames.membase.policy.Policy;
 import net.tridentgames.membase.policy.Policy.ExpirationData;
-import net.tridentgames.membase.type.expiring.thread.ExpirationThread;
+import net.tridentgames.membase.type.expiring.thread.ExpirationScheduler;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 public class ExpiringMemoryStore<V> extends AbstractStore<V> implements ExpiringStore<V> {
-    private final List<Policy<V, ? extends ExpirationData>> policies = new ArrayList<>();
+    private final List<Policy<V, ? extends ExpirationData>> policies;
     private final Map<RemovalType, Set<RemovalListener<V>>> removalListeners;
+    private @Nullable RemovalDispatcher<V> removalDispatcher;
     private final Map<Policy<V, ?>, Map<V, ? extends ExpirationData>> policyData;
+    private final TimerWheel<V> timerWheel;
+    private final Set<V> unscheduled;
+    private final Deque<V> due;
+    private final ExpirationStats.Recorder expirationStats;
+    private final ExpirationScheduler expirationScheduler;
+    private @Nullable ScheduledFuture<?> expirationTask;
+    private long expirationPeriod;
+    private Runnable sweep;
     private boolean debug = false;
 
-    private ExpiringMemoryStore(@NotNull ReferenceManager<V> referenceManager, @NotNull IndexManager<V> indexManager, @NotNull Map<RemovalType, Set<RemovalListener<V>>> removalListeners, @NotNull Map<Policy<V, ?>, Map<V, ? extends ExpirationData>> policyData) {
+    private ExpiringMemoryStore(@NotNull ReferenceManager<V> referenceManager, @NotNull IndexManager<V> indexManager, @NotNull Map<RemovalType, Set<RemovalListener<V>>> removalListeners, @NotNull List<Policy<V, ? extends ExpirationData>> policies, @NotNull Map<Policy<V, ?>, Map<V, ? extends ExpirationData>> policyData, @NotNull ExpirationScheduler expirationScheduler) {
         super(referenceManager, indexManager);
 
         this.removalListeners = removalListeners;
+        this.policies = policies;
         this.policyData = policyData;
+        this.timerWheel = new TimerWheel<>(System.currentTimeMillis());
+        this.unscheduled = new HashSet<>();
+        this.due = new ArrayDeque<>();
+        this.expirationStats = new ExpirationStats.Recorder();
+        this.expirationScheduler = expirationScheduler;
+        this.expirationPeriod = -1;
+        this.sweep = this::invalidate;
+    }
+
+    public ExpiringMemoryStore(@NotNull ExpirationScheduler expirationScheduler) {
+        this(new DefaultReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>()), new ReferenceIndexManager<>(), new ConcurrentHashMap<>(), new ArrayList<>(), new HashMap<>(), expirationScheduler);
+    }
+
+    public ExpiringMemoryStore(@NotNull ExpirationScheduler expirationScheduler, @NotNull IndexExecutor indexExecutor) {
+        this(new DefaultReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>()), new ReferenceIndexManager<>(indexExecutor), new ConcurrentHashMap<>(), new ArrayList<>(), new HashMap<>(), expirationScheduler);
     }
 
     public ExpiringMemoryStore() {
-        this(new DefaultReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>()), new ReferenceIndexManager<>(), new HashMap<>(), new HashMap<>());
+        this(ExpirationScheduler.getDefault());
     }
 
     public void policyCreate(final V value) {
@@ -61,6 +94,8 @@ public class ExpiringMemoryStore<V> extends AbstractStore<V> implements Expiring
             final Map map = entry.getValue();
             map.put(value, data);
         }
+
+        this.schedule(value);
     }
 
     @Override
@@ -68,83 +103,132 @@ public class ExpiringMemoryStore<V> extends AbstractStore<V> implements Expiring
         final boolean added = super.add(item);
 
         if (!added) {
-            this.getRemovalListeners()
-                .getOrDefault(RemovalType.REMOVED, Collections.emptySet())
-                .forEach(listener -> listener.getListener().accept(item));
-        } else {
-            this.policyCreate(item);
+            this.notifyRemoval(RemovalType.REMOVED, item);
         }
 
         return added;
     }
 
     @Override
-    public Map<RemovalType, Set<RemovalListener<V>>> getRemovalListeners() {
-        return this.removalListeners;
+    public boolean addAll(final Collection<? extends V> items) {
+        final Set<V> created = items.stream().filter(item -> !this.contains(item)).collect(Collectors.toCollection(LinkedHashSet::new));
+
+        try {
+            return super.addAll(items);
+        } finally {
+            for (final V item : created) {
+                if (this.contains(item)) {
+                    this.policyCreate(item);
+                }
+            }
+
+            this.evict();
+        }
     }
 
     @Override
-    protected Store<V> createCopy(final ReferenceManager<V> referenceManager, final IndexManager<V> indexManager) {
-        return new ExpiringMemoryStore<>(referenceManager.copy(), indexManager.copy(), new HashMap<>(this.removalListeners), new HashMap<>(this.policyData));
+    public Map<RemovalType, Set<RemovalListener<V>>> getRemovalListeners() {
+        return this.removalListeners;
     }
 
     @Override
-    public List<V> get(@NotNull final Query query, @Nullable final Integer limit) {
-        final Set<Reference<V>> results = new LinkedHashSet<>();
+    protected Store<V> createCopy(final ReferenceManager<V> referenceManager, final IndexManager<V> indexManager) {
+        final List<Policy<V, ? extends ExpirationData>> policiesCopy = new ArrayList<>();
+        final Map<Policy<V, ?>, Map<V, ? extends ExpirationData>> policyDataCopy = new HashMap<>();
 
-        for (final Section section : query.getSections()) {
-            boolean firstMatch = true;
+        for (final Policy<V, ? extends ExpirationData> policy : this.policies) {
+            final Policy<V, ? extends ExpirationData> policyCopy = policy.copy();
+            policiesCopy.add(policyCopy);
+            policyDataCopy.put(policyCopy, policyCopy == policy ? new HashMap<>(this.policyData.get(policy)) : new HashMap<>());
+        }
 
-            for (final SectionPart part : section.getParts()) {
-                final Set<Reference<V>> references = Optional.ofNullable(this.indexManager.getIndex(part.getKey()))
-                    .map(index -> index.getReferences(part.getValue()))
-                    .orElse(Collections.emptySet());
+        final ExpiringMemoryStore<V> copy = new ExpiringMemoryStore<>(referenceManager.copy(), indexManager.copy(), new ConcurrentHashMap<>(this.removalListeners), policiesCopy, policyDataCopy, this.expirationScheduler);
 
-                if (firstMatch || section.getOperator() == SectionOperator.OR) {
-                    results.addAll(references);
-                    firstMatch = false;
-                } else {
-                    results.retainAll(references);
-                }
+        for (int i = 0; i < policiesCopy.size(); i++) {
+            if (policiesCopy.get(i) != this.policies.get(i)) {
+                copy.createExpirationData(policiesCopy.get(i)); // tracks the values of its store
             }
         }
 
-        return results.stream()
-            .map(Reference::get)
-            .limit(limit == null || limit == -1 ? Long.MAX_VALUE : limit)
-            .peek(reference -> {
-                for (final Policy policy : this.policies) {
-                    final ExpirationData data = this.policyData.get(policy).get(reference);
+        if (Objects.nonNull(this.removalDispatcher)) {
+            copy.removalDispatcher = this.removalDispatcher.withListeners(copy.removalListeners);
+        }
+
+        copy.forEach(copy::schedule);
 
-                    if (data == null && !policy.isNullable()) {
-                        final ExpirationData create = policy.createExpirationData(reference);
-                        final Map map = this.policyData.get(policy);
-                        map.put(reference, create);
+        return copy;
+    }
 
-                        policy.onAccess(reference, create);
-                        continue;
-                    }
+    @Override
+    protected void access(final V item) {
+        for (final Policy policy : this.policies) {
+            final ExpirationData data = this.policyData.get(policy).get(item);
 
-                    policy.onAccess(reference, this.policyData.get(policy).get(reference));
-                }
-            }).collect(Collectors.toList());
+            if (data == null && !policy.isNullable()) {
+                final ExpirationData create = policy.createExpirationData(item);
+                final Map map = this.policyData.get(policy);
+                map.put(item, create);
+
+                policy.onAccess(item, create);
+                continue;
+            }
+
+            policy.onAccess(item, data);
+        }
     }
 
     @Override
     public void addPolicy(@NotNull Policy<V, ?> policy) {
         this.policies.add(policy);
         this.policyData.put(policy, new HashMap<>());
+        this.createExpirationData(policy);
+
+        for (final V item : this) {
+            this.schedule(item);
+        }
+
+        this.evict();
+        this.scheduleSweeps();
+    }
+
+    private <T extends ExpirationData> void createExpirationData(final Policy<V, T> policy) {
+        final Map<V, T> policyData = this.getPolicyData(policy);
+
+        for (final V item : this) {
+            final T data = policy.createExpirationData(item);
+
+            if (data != null) {
+                policyData.put(item, data);
+            }
+        }
+    }
+
+    @Override
+    public @NotNull ExpirationStats getExpirationStats() {
+        return this.expirationStats.snapshot(this.due.size());
+    }
 
-        if (policy instanceof TimedExpiringPolicy) {
-            final TimedExpiringPolicy timedExpiringPolicy = (TimedExpiringPolicy) policy;
+    @Override
+    public void setRemovalDispatch(@NotNull Executor executor, final int capacity, final int batchSize, @NotNull OverflowPolicy overflowPolicy) {
+        this.removalDispatcher = new RemovalDispatcher<>(this.removalListeners, executor, capacity, batchSize, overflowPolicy);
+    }
 
-            final TimeUnit timeUnit = timedExpiringPolicy.getUnit();
-            final long duration = timedExpiringPolicy.getDuration();
+    @Override
+    public @Nullable RemovalDispatchStats getRemovalDispatchStats() {
+        return Objects.isNull(this.removalDispatcher) ? null : this.removalDispatcher.getDispatchStats();
+    }
 
-            ExpirationThread.getExecutor().scheduleAtFixedRate(() -> {
-                this.invalidate();
-            }, duration, duration, timeUnit);
+    /**
+     * Stop sweeping this store for expired items. Adding a policy or {@link #scheduleSweeps()} resumes sweeping.
+     */
+    @Override
+    public void close() {
+        if (Objects.nonNull(this.expirationTask)) {
+            this.expirationTask.cancel(false);
+            this.expirationTask = null;
         }
+
+        this.expirationPeriod = -1;
     }
 
     @Override
@@ -156,55 +240,164 @@ public class ExpiringMemoryStore<V> extends AbstractStore<V> implements Expiring
     public boolean remove(@Nullable Object obj) {
         final boolean removed = super.remove(obj);
         if (removed) {
-            this.getRemovalListeners()
-                .getOrDefault(RemovalType.REMOVED, Collections.emptySet())
-                .forEach(listener -> listener.getListener().accept((V) obj));
+            final V item = (V) obj; // it was stored, so it is a value
+            this.notifyRemoval(RemovalType.REMOVED, item);
 
-            for (final Entry<Policy<V, ?>, Map<V, ? extends ExpirationData>> policyData : this.policyData.entrySet()) {
-                policyData.getValue().remove(obj);
-            }
+            this.forget(item);
         }
 
         return removed;
     }
 
+    /**
+     * Remove the items matching a query one by one, so they are forgotten and their listeners notified like with
+     * {@link #remove(Object)}
+     */
+    @Override
+    public List<V> remove(@NotNull Query query) {
+        final List<V> results = this.get(query, null);
+
+        for (final V result : results) {
+            this.remove(result);
+        }
+
+        return results;
+    }
+
+    /**
+     * Iterate over the items. Removing through the iterator, as {@link #removeIf(java.util.function.Predicate)} and
+     * {@link #retainAll(Collection)} do, forgets the item and notifies listeners like {@link #remove(Object)}.
+     */
+    @Override
+    public Iterator<V> iterator() {
+        final Iterator<V> iterator = super.iterator();
+
+        return new Iterator<V>() {
+            private V previous;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public V next() {
+                this.previous = iterator.next();
+                return this.previous;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                ExpiringMemoryStore.this.notifyRemoval(RemovalType.REMOVED, this.previous);
+                ExpiringMemoryStore.this.forget(this.previous);
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+
+        for (final Policy<V, ?> policy : this.policies) {
+            this.clearPolicyData(policy);
+        }
+
+        this.timerWheel.clear();
+        this.unscheduled.clear();
+        this.due.clear();
+    }
+
     @Override
     public Store<V> synchronizedStore() {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Store<V> concurrentStore() {
+        throw new UnsupportedOperationException(); // queries record access for policies, they cannot share a read lock
+    }
+
+    @Override
+    public Store<V> leftRightStore() {
+        throw new UnsupportedOperationException(); // queries record access for policies, reads must not mutate
+    }
+
+    /**
+     * Check the items whose expiration time has passed, rescheduling the ones a policy still keeps alive (e.g. after
+     * an access reset their timer), and items whose expiration time is unknown.
+     */
     @Override
     public void invalidate() {
-        final List<V> invalidations = new ArrayList<>();
+        if (!this.due.isEmpty()) {
+            this.invalidate(Integer.MAX_VALUE, Long.MAX_VALUE, TimeUnit.NANOSECONDS); // finish the sweep in progress
+        }
 
-        for (final V item : this) {
-            final boolean invalidate = this.checkExpiration(item);
+        this.invalidate(Integer.MAX_VALUE, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
 
-            if (invalidate) {
-                invalidations.add(item);
+    /**
+     * Run part of a sweep, checking at most the given number of items or for at most the given time. The next call
+     * resumes where this one stopped, a new sweep starts once the previous one is complete.
+     *
+     * @param maxItems maximum number of items to check
+     * @param maxTime  maximum time to spend checking
+     * @param unit     unit of maxTime
+     * @return whether the sweep is complete
+     */
+    public boolean invalidate(final int maxItems, final long maxTime, @NotNull TimeUnit unit) {
+        final long started = System.nanoTime();
+        final long maxNanos = unit.toNanos(maxTime);
+
+        if (this.due.isEmpty()) {
+            this.due.addAll(this.timerWheel.advance(System.currentTimeMillis()));
+            this.due.addAll(this.unscheduled);
+        }
+
+        int checked = 0;
+        int invalidated = 0;
+
+        while (!this.due.isEmpty() && checked < maxItems && System.nanoTime() - started < maxNanos) {
+            final V item = this.due.poll();
+            checked++;
+
+            if (!this.contains(item)) {
+                continue; // removed since it was due
             }
+
+            if (!this.checkExpiration(item)) {
+                this.schedule(item);
+                continue;
+            }
+
+            final long expirationTime = this.getExpirationTime(item);
+
+            if (expirationTime >= 0) {
+                this.expirationStats.recordLatency(System.currentTimeMillis() - expirationTime);
+            }
+
+            this.invalidate(item);
+            invalidated++;
         }
 
         if (this.debug) {
-            System.out.println("Invalidating " + invalidations.size() + " items...");
+            System.out.println("Invalidated " + invalidated + " of " + checked + " items...");
         }
 
-        for (final V invalidation : invalidations) {
-            this.invalidate(invalidation);
-        }
+        return this.due.isEmpty();
     }
 
     public void invalidate(final V obj) {
         final boolean removed = super.remove(obj);
+        this.forget(obj);
 
         if (removed) {
             if (this.debug) {
                 System.out.println("Successfully removed " + obj);
             }
 
-            this.getRemovalListeners()
-                .getOrDefault(RemovalType.EXPIRED, Collections.emptySet())
-                .forEach(listener -> listener.getListener().accept(obj));
+            this.expirationStats.recordEviction();
+            this.notifyRemoval(RemovalType.EXPIRED, obj);
         }
     }
 
@@ -218,9 +411,15 @@ public class ExpiringMemoryStore<V> extends AbstractStore<V> implements Expiring
         }
 
         boolean invalidate = true;
+        boolean expiring = false;
 
         for (final Policy policy : this.policies) {
+            if (!policy.isExpiring()) {
+                continue;
+            }
+
             final ExpirationData data = this.policyData.get(policy).get(value);
+            expiring = true;
 
             if (this.debug) {
                 System.out.println("Checking " + policy.key());
@@ -240,7 +439,151 @@ public class ExpiringMemoryStore<V> extends AbstractStore<V> implements Expiring
             }
         }
 
-        return invalidate;
+        return expiring && invalidate;
+    }
+
+    /**
+     * Time in milliseconds at which an item expires. Every expiring policy must agree before an item expires, so this
+     * is the latest time reported by any of them.
+     *
+     * @param value item
+     * @return expiration time or -1 if a policy cannot tell
+     */
+    public long getExpirationTime(final V value) {
+        long expirationTime = -1;
+
+        for (final Policy<V, ?> policy : this.policies) {
+            if (!policy.isExpiring()) {
+                continue;
+            }
+
+            final long policyExpirationTime = this.getExpirationTime(policy, value);
+
+            if (policyExpirationTime < 0) {
+                return -1;
+            }
+
+            expirationTime = Math.max(expirationTime, policyExpirationTime);
+        }
+
+        return expirationTime;
+    }
+
+    private <T extends ExpirationData> long getExpirationTime(final Policy<V, T> policy, final V value) {
+        return policy.getExpirationTime(value, this.getPolicyData(policy).get(value));
+    }
+
+    /**
+     * Run a single sweep for all policies, twice per shortest policy duration so items expire at most half their
+     * duration late
+     */
+    @Override
+    public void scheduleSweeps() {
+        long period = Long.MAX_VALUE;
+
+        for (final Policy<V, ?> policy : this.policies) {
+            if (policy instanceof TimedExpiringPolicy) {
+                final TimedExpiringPolicy<V> timedExpiringPolicy = (TimedExpiringPolicy<V>) policy;
+                period = Math.min(period, Math.max(1, timedExpiringPolicy.getUnit().toMillis(timedExpiringPolicy.getDuration()) / 2));
+            }
+        }
+
+        if (period == Long.MAX_VALUE || period == this.expirationPeriod) {
+            return;
+        }
+
+        this.close();
+        this.expirationPeriod = period;
+        this.expirationTask = this.expirationScheduler.schedule(() -> this.sweep.run(), period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replace what periodic sweeps run, used by stores wrapping this one to sweep under their own lock
+     *
+     * @param sweep sweep
+     */
+    void setSweep(final Runnable sweep) {
+        this.sweep = sweep;
+    }
+
+    private void schedule(final V value) {
+        if (!this.isExpiring()) {
+            return; // nothing can expire
+        }
+
+        final long expirationTime = this.getExpirationTime(value);
+
+        if (expirationTime < 0) {
+            this.timerWheel.remove(value);
+            this.unscheduled.add(value);
+            return;
+        }
+
+        this.unscheduled.remove(value);
+        this.timerWheel.schedule(value, expirationTime);
+    }
+
+    private void notifyRemoval(final RemovalType removalType, final V item) {
+        if (Objects.nonNull(this.removalDispatcher)) {
+            this.removalDispatcher.dispatch(removalType, item);
+            return;
+        }
+
+        for (final RemovalListener<V> listener : this.removalListeners.getOrDefault(removalType, Collections.emptySet())) {
+            listener.getListener().accept(item);
+        }
+    }
+
+    private boolean isExpiring() {
+        for (final Policy<V, ?> policy : this.policies) {
+            if (policy.isExpiring()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Remove the values policies evict regardless of expiration, see {@link Policy#evict()}
+     */
+    private void evict() {
+        for (final Policy<V, ?> policy : this.policies) {
+            for (final V item : policy.evict()) {
+                this.invalidate(item);
+            }
+        }
+    }
+
+    private void forget(final V value) {
+        for (final Policy<V, ?> policy : this.policies) {
+            this.forgetPolicyData(policy, value);
+        }
+
+        this.timerWheel.remove(value);
+        this.unscheduled.remove(value);
+    }
+
+    private <T extends ExpirationData> void forgetPolicyData(final Policy<V, T> policy, final V value) {
+        final T data = this.getPolicyData(policy).remove(value);
+
+        if (data != null) {
+            policy.onRemoval(value, data);
+        }
+    }
+
+    private <T extends ExpirationData> void clearPolicyData(final Policy<V, T> policy) {
+        final Map<V, T> policyData = this.getPolicyData(policy);
+        policyData.forEach(policy::onRemoval);
+        policyData.clear();
+    }
+
+    /**
+     * Expiration data of the values of a policy, which only holds data the policy created
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ExpirationData> Map<V, T> getPolicyData(final Policy<V, T> policy) {
+        return (Map<V, T>) this.policyData.get(policy);
     }
 
     public void setDebug(boolean debug) {
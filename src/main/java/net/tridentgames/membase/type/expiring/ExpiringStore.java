@@ -1,7 +1,50 @@
 package net.tridentgames.membase.type.expiring;
 
+import java.util.concurrent.Executor;
+import net.tridentgames.membase.listener.RemovalDispatchStats;
+import net.tridentgames.membase.listener.RemovalDispatcher;
+import net.tridentgames.membase.listener.enums.OverflowPolicy;
 import net.tridentgames.membase.policy.PolicyStore;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-public interface ExpiringStore<V> extends PolicyStore<V> {
+public interface ExpiringStore<V> extends PolicyStore<V>, AutoCloseable {
     void invalidate();
+
+    /**
+     * Get eviction counts and expiry latency of this store
+     *
+     * @return expiration stats
+     */
+    @NotNull ExpirationStats getExpirationStats();
+
+    /**
+     * Notify removal listeners asynchronously, in batches on the given executor, instead of while removing items. See
+     * {@link RemovalDispatcher}.
+     *
+     * @param executor       executor notifying listeners, e.g. a virtual thread executor
+     * @param capacity       maximum number of removals waiting for their listeners
+     * @param batchSize      maximum number of removals per batch
+     * @param overflowPolicy what to do with removals while capacity removals are waiting
+     */
+    void setRemovalDispatch(@NotNull Executor executor, int capacity, int batchSize, @NotNull OverflowPolicy overflowPolicy);
+
+    /**
+     * Get delivery and drop counts of the asynchronous removal dispatch
+     *
+     * @return dispatch stats, or null if listeners are notified while removing items
+     */
+    @Nullable RemovalDispatchStats getRemovalDispatchStats();
+
+    /**
+     * Sweep this store for expired items periodically, as adding a policy does. Copies are only swept once this is
+     * called, so copies dropped without being closed leave no sweeps behind.
+     */
+    void scheduleSweeps();
+
+    /**
+     * Cancel the periodic expiration sweeps of this store
+     */
+    @Override
+    void close();
 }
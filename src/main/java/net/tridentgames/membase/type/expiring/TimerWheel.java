@@ -0,0 +1,191 @@
+package net.tridentgames.membase.type.expiring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Hierarchical timing wheel holding values by the time in milliseconds they are due. Each level is a ring of buckets
+ * covering a fixed span of time, values far in the future sit in coarse buckets and cascade into finer ones as time
+ * advances. Scheduling and removal are constant time and advancing only visits the buckets time has passed.
+ *
+ * @param <V> value type
+ */
+public class TimerWheel<V> {
+    private static final int[] BUCKETS = {64, 64, 64, 64, 1};
+    private static final int[] SHIFTS = {6, 12, 18, 24, 30}; // level 0 buckets span 64ms, each level 64 times more
+
+    private final Node<V>[][] wheel;
+    private final Map<V, Node<V>> nodes;
+    private long time;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(final long time) {
+        this.wheel = new Node[BUCKETS.length][];
+        this.nodes = new HashMap<>();
+        this.time = time;
+
+        for (int level = 0; level < BUCKETS.length; level++) {
+            this.wheel[level] = new Node[BUCKETS[level]];
+
+            for (int bucket = 0; bucket < BUCKETS[level]; bucket++) {
+                this.wheel[level][bucket] = new Node<>(null, 0);
+            }
+        }
+    }
+
+    /**
+     * Schedule a value, replacing its previous schedule
+     *
+     * @param value    value
+     * @param deadline time in milliseconds the value is due
+     */
+    public void schedule(@NotNull V value, long deadline) {
+        Node<V> node = this.nodes.get(value);
+
+        if (Objects.isNull(node)) {
+            node = new Node<>(value, deadline);
+            this.nodes.put(value, node);
+        } else {
+            node.unlink();
+            node.deadline = deadline;
+        }
+
+        this.link(node);
+    }
+
+    /**
+     * Remove a value from the wheel
+     *
+     * @param value value
+     * @return whether the value was scheduled
+     */
+    public boolean remove(@NotNull Object value) {
+        final Node<V> node = this.nodes.remove(value);
+
+        if (Objects.isNull(node)) {
+            return false;
+        }
+
+        node.unlink();
+        return true;
+    }
+
+    /**
+     * Advance the wheel and remove every value due at the given time. Values are found at most 64ms after their
+     * deadline.
+     *
+     * @param now current time in milliseconds
+     * @return values that are due
+     */
+    public @NotNull List<V> advance(long now) {
+        final List<V> due = new ArrayList<>();
+        final long previousTime = this.time;
+
+        if (now <= previousTime) {
+            return due;
+        }
+
+        this.time = now;
+
+        for (int level = 0; level < BUCKETS.length; level++) {
+            final long previousTicks = previousTime >>> SHIFTS[level];
+            final long ticks = now >>> SHIFTS[level];
+
+            if (ticks <= previousTicks) {
+                break; // coarser levels only move after finer ones
+            }
+
+            this.expire(level, previousTicks, ticks - previousTicks, due);
+        }
+
+        return due;
+    }
+
+    public boolean contains(@NotNull Object value) {
+        return this.nodes.containsKey(value);
+    }
+
+    public int size() {
+        return this.nodes.size();
+    }
+
+    public void clear() {
+        for (final Node<V> node : this.nodes.values()) {
+            node.unlink();
+        }
+
+        this.nodes.clear();
+    }
+
+    private void expire(final int level, final long previousTicks, final long elapsedTicks, final List<V> due) {
+        final Node<V>[] buckets = this.wheel[level];
+        final int count = (int) Math.min(elapsedTicks, buckets.length);
+        final long firstTick = level == 0 ? previousTicks : previousTicks + 1; // coarse buckets cascade once they begin
+
+        for (int i = 0; i < count; i++) {
+            final Node<V> sentinel = buckets[(int) ((firstTick + i) & (buckets.length - 1))];
+            Node<V> node = sentinel.next;
+            sentinel.next = sentinel;
+            sentinel.previous = sentinel;
+
+            while (node != sentinel) {
+                final Node<V> next = node.next;
+                node.next = node;
+                node.previous = node;
+
+                if (node.deadline <= this.time) {
+                    this.nodes.remove(node.value);
+                    due.add(node.value);
+                } else {
+                    this.link(node); // not due yet, cascade into a finer bucket
+                }
+
+                node = next;
+            }
+        }
+    }
+
+    private void link(final Node<V> node) {
+        final long deadline = Math.max(node.deadline, this.time);
+        final long delay = deadline - this.time;
+        int level = 0;
+
+        while (level < BUCKETS.length - 1 && delay >= 1L << SHIFTS[level + 1]) {
+            level++;
+        }
+
+        final Node<V>[] buckets = this.wheel[level];
+        final Node<V> sentinel = buckets[(int) ((deadline >>> SHIFTS[level]) & (buckets.length - 1))];
+
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private long deadline;
+        private Node<V> previous;
+        private Node<V> next;
+
+        private Node(final V value, final long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+            this.previous = this;
+            this.next = this;
+        }
+
+        private void unlink() {
+            this.previous.next = this.next;
+            this.next.previous = this.previous;
+            this.previous = this;
+            this.next = this;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package net.tridentgames.membase.type.expiring.thread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Schedules the periodic expiration sweeps of expiring stores. A timer decides when sweeps are due and hands them to
+ * an executor, which may be the timer itself or e.g. a virtual thread executor. Each sweep starts at a random offset
+ * within its period so stores created together do not sweep on the same tick, and a sweep is skipped while the
+ * previous one of the same task is still running.
+ */
+public class ExpirationScheduler {
+    private static final ExpirationScheduler DEFAULT = new ExpirationScheduler(ExpirationThread.getExecutor());
+
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+
+    public ExpirationScheduler(final ScheduledExecutorService timer, final Executor executor) {
+        this.timer = timer;
+        this.executor = executor;
+    }
+
+    public ExpirationScheduler(final ScheduledExecutorService timer) {
+        this(timer, timer);
+    }
+
+    /**
+     * Create a scheduler sweeping on its own pool of daemon threads
+     *
+     * @param threads number of threads
+     * @return scheduler
+     */
+    public static @NotNull ExpirationScheduler create(final int threads) {
+        return new ExpirationScheduler(ExpirationThread.createExecutor(threads));
+    }
+
+    /**
+     * Get the scheduler shared by stores that were not given one, sweeping on {@link ExpirationThread#getExecutor()}
+     *
+     * @return default scheduler
+     */
+    public static @NotNull ExpirationScheduler getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Run a sweep periodically until the returned future is cancelled
+     *
+     * @param sweep  sweep to run
+     * @param period time between sweeps
+     * @param unit   unit of period
+     * @return future cancelling the sweeps
+     */
+    public @NotNull ScheduledFuture<?> schedule(@NotNull Runnable sweep, long period, @NotNull TimeUnit unit) {
+        final AtomicBoolean running = new AtomicBoolean();
+        final Runnable task = () -> {
+            try {
+                sweep.run();
+            } finally {
+                running.set(false);
+            }
+        };
+
+        final long initialDelay = ThreadLocalRandom.current().nextLong(period);
+
+        return this.timer.scheduleAtFixedRate(() -> {
+            if (running.compareAndSet(false, true)) {
+                this.execute(task, running);
+            }
+        }, initialDelay, period, unit);
+    }
+
+    private void execute(final Runnable task, final AtomicBoolean running) {
+        if (this.executor == this.timer) {
+            task.run();
+            return;
+        }
+
+        try {
+            this.executor.execute(task);
+        } catch (final RuntimeException e) {
+            running.set(false); // rejected, try again next period
+        }
+    }
+}
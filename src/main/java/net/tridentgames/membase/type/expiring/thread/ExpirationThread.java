@@ -4,9 +4,26 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import org.jetbrains.annotations.NotNull;
 
 public class ExpirationThread {
-    private static final ScheduledThreadPoolExecutor EXECUTOR = new ScheduledThreadPoolExecutor(1);
+    private static final ScheduledThreadPoolExecutor EXECUTOR = createExecutor(1);
 
     public static @NotNull ScheduledThreadPoolExecutor getExecutor() {
         return EXECUTOR;
     }
+
+    /**
+     * Create an executor with daemon threads that drops cancelled sweeps right away
+     *
+     * @param threads number of threads
+     * @return executor
+     */
+    public static @NotNull ScheduledThreadPoolExecutor createExecutor(final int threads) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "membase-expiration");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
 }
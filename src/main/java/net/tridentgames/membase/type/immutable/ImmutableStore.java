@@ -84,6 +84,16 @@ public class ImmutableStore<V> implements Store<V> {
         return this.store.getFirst(query);
     }
 
+    @Override
+    public int count(final Query query) {
+        return this.store.count(query);
+    }
+
+    @Override
+    public boolean exists(final Query query) {
+        return this.store.exists(query);
+    }
+
     @Override
     public Optional<V> findFirst(final Query query) {
         return this.store.findFirst(query);
@@ -109,6 +119,16 @@ public class ImmutableStore<V> implements Store<V> {
         return this.store.synchronizedStore().immutableStore();
     }
 
+    @Override
+    public Store<V> concurrentStore() {
+        return this.store.concurrentStore().immutableStore();
+    }
+
+    @Override
+    public Store<V> leftRightStore() {
+        return this.store.leftRightStore().immutableStore();
+    }
+
     @Override
     public Index<V> getIndex(final String indexName) {
         return this.store.getIndex(indexName);
@@ -9,6 +9,7 @@ import net.tridentgames.membase.AbstractStore;
 import net.tridentgames.membase.Store;
 import net.tridentgames.membase.identity.DefaultIdentityProvider;
 import net.tridentgames.membase.index.IndexDefinition;
+import net.tridentgames.membase.index.IndexExecutor;
 import net.tridentgames.membase.index.IndexManager;
 import net.tridentgames.membase.index.KeyMapper;
 import net.tridentgames.membase.index.ReferenceIndexManager;
@@ -36,6 +37,26 @@ public class MemoryStore<V> extends AbstractStore<V> {
         this(new DefaultReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>()), new ReferenceIndexManager<>());
     }
 
+    /**
+     * Create a store building its indexes in parallel for large batches
+     *
+     * @param indexExecutor executor indexing large batches
+     */
+    public MemoryStore(@NotNull final IndexExecutor indexExecutor) {
+        this(new DefaultReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>()), new ReferenceIndexManager<>(indexExecutor));
+    }
+
+    /**
+     * Create a store holding its references in the given reference manager, e.g. a
+     * {@link net.tridentgames.membase.reference.ConcurrentReferenceManager} to look items up without locking, see
+     * {@link AbstractStore#isConcurrentContains()}
+     *
+     * @param referenceManager empty reference manager
+     */
+    public MemoryStore(@NotNull final ReferenceManager<V> referenceManager) {
+        this(referenceManager, new ReferenceIndexManager<>());
+    }
+
     public MemoryStore(final Collection<V> items) {
         this();
         this.addAll(items);
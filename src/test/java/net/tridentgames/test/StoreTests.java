@@ -1,16 +1,47 @@
 package net.tridentgames.test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 import net.tridentgames.membase.Store;
+import net.tridentgames.membase.identity.DefaultIdentityProvider;
+import net.tridentgames.membase.index.Element;
+import net.tridentgames.membase.index.Index;
+import net.tridentgames.membase.index.IndexDefinition;
+import net.tridentgames.membase.index.IndexException;
+import net.tridentgames.membase.index.IndexExecutor;
+import net.tridentgames.membase.index.IntIndexDefinition;
+import net.tridentgames.membase.index.comparison.string.CaseInsensitiveComparisonPolicy;
+import net.tridentgames.membase.index.reducer.LimitReducer;
+import net.tridentgames.membase.index.reducer.MaxReducer;
+import net.tridentgames.membase.listener.RemovalListener;
+import net.tridentgames.membase.listener.enums.OverflowPolicy;
+import net.tridentgames.membase.listener.enums.RemovalType;
+import net.tridentgames.membase.memory.MemoryReferenceFactory;
+import net.tridentgames.membase.policy.type.SizeBoundedPolicy;
 import net.tridentgames.membase.policy.type.TimedExpiringPolicy;
 import net.tridentgames.membase.query.section.Section;
+import net.tridentgames.membase.reference.ConcurrentReferenceManager;
+import net.tridentgames.membase.type.concurrent.ConcurrentStore;
+import net.tridentgames.membase.type.concurrent.LeftRightStore;
+import net.tridentgames.membase.type.expiring.ExpiringConcurrentMemoryStore;
 import net.tridentgames.membase.type.expiring.ExpiringMemoryStore;
 import net.tridentgames.membase.type.expiring.ExpiringStore;
+import net.tridentgames.membase.type.expiring.thread.ExpirationScheduler;
 import net.tridentgames.membase.type.memory.MemoryStore;
 import net.tridentgames.membase.query.Query;
 import net.tridentgames.test.modal.Person;
@@ -73,6 +104,215 @@ public class StoreTests {
         assertThat(store.size()).isEqualTo(0);
     }
 
+    @Test
+    public void accessedItemsAreRescheduled() throws InterruptedException {
+        final ExpiringMemoryStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        store.index("firstName", SimplePerson::getFirstName);
+        store.addPolicy(TimedExpiringPolicy.of(TimeUnit.MILLISECONDS, 500, true));
+        store.close(); // sweep by hand
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        store.add(john);
+        final long expirationTime = store.getExpirationTime(john);
+
+        Thread.sleep(300);
+        assertThat(store.getFirst(Query.simpleQuery().where("firstName", "John"))).isEqualTo(john);
+
+        Thread.sleep(300); // past the first expiration time
+        store.invalidate();
+
+        assertThat(store).containsExactly(john);
+        assertThat(store.getExpirationTime(john)).isGreaterThan(expirationTime);
+
+        Thread.sleep(600);
+        store.invalidate();
+
+        assertThat(store).isEmpty();
+    }
+
+    @Test
+    public void cappedSweepsResume() throws InterruptedException {
+        final ExpiringMemoryStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        store.addPolicy(TimedExpiringPolicy.of(TimeUnit.MILLISECONDS, 100, false));
+        store.close(); // sweep by hand
+
+        for (int i = 0; i < 10; i++) {
+            store.add(new SimplePerson("Name" + i, "Doe", i));
+        }
+
+        Thread.sleep(250);
+
+        assertThat(store.invalidate(4, Long.MAX_VALUE, TimeUnit.NANOSECONDS)).isFalse();
+        assertThat(store).hasSize(6);
+        assertThat(store.getExpirationStats().getPendingCount()).isEqualTo(6);
+        assertThat(store.getExpirationStats().getEvictionCount()).isEqualTo(4);
+
+        assertThat(store.invalidate(4, Long.MAX_VALUE, TimeUnit.NANOSECONDS)).isFalse();
+        assertThat(store).hasSize(2);
+        assertThat(store.getExpirationStats().getPendingCount()).isEqualTo(2);
+
+        assertThat(store.invalidate(4, Long.MAX_VALUE, TimeUnit.NANOSECONDS)).isTrue();
+        assertThat(store).isEmpty();
+        assertThat(store.getExpirationStats().getPendingCount()).isZero();
+        assertThat(store.getExpirationStats().getEvictionCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void batchedSweepsComplete() throws InterruptedException {
+        final ExpiringConcurrentMemoryStore<SimplePerson> store = new ExpiringConcurrentMemoryStore<>();
+        store.addPolicy(TimedExpiringPolicy.of(TimeUnit.MILLISECONDS, 100, false));
+        store.close(); // sweep by hand
+
+        assertThatThrownBy(() -> store.setExpirationBatch(0, 1, TimeUnit.SECONDS)).isInstanceOf(IllegalArgumentException.class);
+        store.setExpirationBatch(3, 1, TimeUnit.SECONDS);
+
+        for (int i = 0; i < 10; i++) {
+            store.add(new SimplePerson("Name" + i, "Doe", i));
+        }
+
+        Thread.sleep(250);
+        store.invalidate();
+
+        assertThat(store).isEmpty();
+        assertThat(store.getExpirationStats().getPendingCount()).isZero();
+        assertThat(store.getExpirationStats().getEvictionCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void copiesAreNotSweptUntilScheduled() {
+        final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1);
+        timer.setRemoveOnCancelPolicy(true);
+
+        final ExpiringStore<SimplePerson> store = new ExpiringMemoryStore<>(new ExpirationScheduler(timer));
+        store.addPolicy(TimedExpiringPolicy.of(TimeUnit.HOURS, 1, false));
+
+        for (int i = 0; i < 10; i++) {
+            store.copy();
+        }
+
+        assertThat(timer.getQueue()).hasSize(1);
+
+        final ExpiringStore<SimplePerson> copy = (ExpiringStore<SimplePerson>) store.copy();
+        copy.scheduleSweeps();
+
+        assertThat(timer.getQueue()).hasSize(2);
+
+        copy.close();
+        store.close();
+
+        assertThat(timer.getQueue()).isEmpty();
+        timer.shutdown();
+    }
+
+    @Test
+    public void sizeBoundedPolicy() {
+        final ExpiringStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        store.index("firstName", SimplePerson::getFirstName);
+        store.addPolicy(SizeBoundedPolicy.of(10));
+
+        final List<SimplePerson> evicted = new ArrayList<>();
+        store.getRemovalListeners().put(RemovalType.EXPIRED, Collections.singleton(new RemovalListener<>(evicted::add)));
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        store.add(john);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(store.getFirst(Query.simpleQuery().where("firstName", "John"))).isEqualTo(john);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            store.add(new SimplePerson("Name" + i, "Smith", i));
+        }
+
+        assertThat(store).hasSize(10).contains(john);
+        assertThat(evicted).hasSize(91).doesNotContain(john);
+    }
+
+    @Test
+    public void sizeBoundedPolicyAddAllDuplicates() {
+        final ExpiringStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        final SizeBoundedPolicy<SimplePerson> policy = SizeBoundedPolicy.of(3);
+        store.addPolicy(policy);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        final SimplePerson jack = new SimplePerson("Jack", "Doe", 23);
+        store.addAll(Arrays.asList(john, john));
+        store.addAll(Arrays.asList(jane, jack));
+
+        assertThat(store).containsExactlyInAnyOrder(john, jane, jack);
+        assertThat(policy.getSize()).isEqualTo(3);
+    }
+
+    @Test
+    public void sizeBoundedPolicyBulkRemoval() {
+        final ExpiringStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        store.index("lastName", SimplePerson::getLastName);
+        final SizeBoundedPolicy<SimplePerson> policy = SizeBoundedPolicy.of(10);
+        store.addPolicy(policy);
+
+        final List<SimplePerson> removed = new ArrayList<>();
+        store.getRemovalListeners().put(RemovalType.REMOVED, Collections.singleton(new RemovalListener<>(removed::add)));
+
+        for (int i = 0; i < 10; i++) {
+            store.add(new SimplePerson("Name" + i, "Doe", i));
+        }
+
+        store.remove(Query.simpleQuery().where("lastName", "Doe"));
+
+        for (int i = 0; i < 10; i++) {
+            store.add(new SimplePerson("Name" + i, "Smith", i));
+        }
+
+        store.removeIf(person -> person.getAge() < 5);
+
+        assertThat(store).hasSize(5);
+        assertThat(policy.getSize()).isEqualTo(5);
+        assertThat(removed).hasSize(15);
+    }
+
+    @Test
+    public void weightedSizeBoundedPolicy() {
+        final ExpiringStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        final SizeBoundedPolicy<SimplePerson> policy = SizeBoundedPolicy.weighted(100, SimplePerson::getAge);
+        store.addPolicy(policy);
+
+        for (int i = 0; i < 10; i++) {
+            store.add(new SimplePerson("Name" + i, "Doe", 30));
+        }
+
+        final SimplePerson old = new SimplePerson("Old", "Doe", 150);
+        store.add(old);
+
+        assertThat(store).hasSize(3).doesNotContain(old);
+        assertThat(policy.getWeight()).isEqualTo(90);
+    }
+
+    @Test
+    public void asyncRemovalListeners() {
+        final ExpiringStore<SimplePerson> store = new ExpiringMemoryStore<>();
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<List<SimplePerson>> batches = new ArrayList<>();
+        store.getRemovalListeners().put(RemovalType.REMOVED, Collections.singleton(RemovalListener.batched(batches::add)));
+        store.setRemovalDispatch(tasks::add, 2, 2, OverflowPolicy.DROP);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        final SimplePerson jack = new SimplePerson("Jack", "Smith", 23);
+        store.addAll(Arrays.asList(john, jane, jack));
+        store.remove(john);
+        store.remove(jane);
+        store.remove(jack); // queue is full
+
+        assertThat(batches).isEmpty();
+        assertThat(store.getRemovalDispatchStats().getDroppedCount()).isEqualTo(1);
+
+        tasks.forEach(Runnable::run);
+
+        assertThat(batches).containsExactly(Arrays.asList(john, jane));
+        assertThat(store.getRemovalDispatchStats().getPendingCount()).isZero();
+    }
+
     @Test
     public void testAdvancedGet() {
         final Store<SimplePerson> store = new MemoryStore<>();
@@ -113,6 +353,605 @@ public class StoreTests {
         }
     }
 
+    @Test
+    public void testPlannedGet() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("firstName", SimplePerson::getFirstName);
+        store.index("lastName", SimplePerson::getLastName);
+        store.index("age", SimplePerson::getAge);
+
+        for (int i = 0; i < 100; i++) {
+            store.add(new SimplePerson("Name" + (i % 10), i % 2 == 0 ? "Doe" : "Smith", i % 7));
+        }
+
+        // smallest posting list (firstName) is walked, the others are probed
+        {
+            final List<SimplePerson> result = store.get(Query.advancedQuery().and(
+                simpleQuery -> simpleQuery.where("lastName", "Smith"),
+                simpleQuery -> simpleQuery.where("age", 3),
+                simpleQuery -> simpleQuery.where("firstName", "Name3")
+            ));
+
+            assertThat(result).hasSize(2);
+            assertThat(result).allMatch(person -> person.getFirstName().equals("Name3") && person.getAge() == 3);
+        }
+
+        // an empty part short-circuits the whole section
+        {
+            final List<SimplePerson> result = store.get(Query.advancedQuery().and(
+                simpleQuery -> simpleQuery.where("lastName", "Smith"),
+                simpleQuery -> simpleQuery.where("firstName", "Paul")
+            ));
+
+            assertThat(result).isEmpty();
+        }
+
+        // sections are united
+        {
+            final List<SimplePerson> result = store.get(Query.advancedQuery()
+                .and(simpleQuery -> simpleQuery.where("firstName", "Name1"), simpleQuery -> simpleQuery.where("age", 1))
+                .or(simpleQuery -> simpleQuery.where("firstName", "Name2")));
+
+            assertThat(result).hasSize(12);
+        }
+    }
+
+    @Test
+    public void testLimitedGet() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("lastName", SimplePerson::getLastName);
+        store.index("age", SimplePerson::getAge);
+
+        for (int i = 0; i < 100; i++) {
+            store.add(new SimplePerson("Name" + i, i % 2 == 0 ? "Doe" : "Smith", i % 7));
+        }
+
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"), 5)).hasSize(5);
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"), 0)).isEmpty();
+        assertThat(store.get(Query.advancedQuery().or(
+            simpleQuery -> simpleQuery.where("lastName", "Doe"),
+            simpleQuery -> simpleQuery.where("lastName", "Smith")
+        ), 60)).hasSize(60);
+        assertThat(store.get(Query.advancedQuery().and(
+            simpleQuery -> simpleQuery.where("lastName", "Doe"),
+            simpleQuery -> simpleQuery.where("age", 0)
+        ), 3)).hasSize(3).allMatch(person -> person.getAge() == 0);
+        assertThat(store.getFirst(Query.simpleQuery().where("lastName", "Smith")).getFirstName()).isEqualTo("Name1");
+    }
+
+    @Test
+    public void substringContains() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("firstName", IndexDefinition.withKeyMapping(SimplePerson::getFirstName)
+            .withComparisonPolicy(new CaseInsensitiveComparisonPolicy())
+            .withSubstringIndex());
+
+        store.add(new SimplePerson("Notch", "Persson", 43));
+        store.add(new SimplePerson("Dinnerbone", "Bergensten", 36));
+        store.add(new SimplePerson("Jeb", "Bergensten", 44));
+
+        assertThat(store.get(Query.simpleQuery().contains("firstName", "OTC"))).extracting(SimplePerson::getFirstName).containsExactly("Notch");
+        assertThat(store.get(Query.simpleQuery().contains("firstName", "n"))).extracting(SimplePerson::getFirstName).containsOnly("Notch", "Dinnerbone");
+        assertThat(store.get(Query.simpleQuery().contains("firstName", "bones"))).isEmpty();
+        assertThat(store.get(Query.simpleQuery().where("firstName", "jeb"))).hasSize(1);
+    }
+
+    @Test
+    public void rangeQueries() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("firstName", IndexDefinition.withKeyMapping(SimplePerson::getFirstName).withSorting());
+        store.index("age", IndexDefinition.withKeyMapping(SimplePerson::getAge).withSorting());
+
+        store.add(new SimplePerson("Alice", "Doe", 18));
+        store.add(new SimplePerson("Albert", "Doe", 25));
+        store.add(new SimplePerson("Bob", "Doe", 32));
+        store.add(new SimplePerson("Carl", "Doe", 47));
+
+        assertThat(store.get(Query.simpleQuery().greaterThan("age", 25))).extracting(SimplePerson::getFirstName).containsExactly("Bob", "Carl");
+        assertThat(store.get(Query.simpleQuery().lessThan("age", 25))).extracting(SimplePerson::getFirstName).containsExactly("Alice");
+        assertThat(store.get(Query.simpleQuery().between("age", 25, 47))).extracting(SimplePerson::getFirstName).containsExactly("Albert", "Bob", "Carl");
+        assertThat(store.get(Query.simpleQuery().between("age", 47, 25))).isEmpty();
+        assertThat(store.get(Query.simpleQuery().prefix("firstName", "Al"))).extracting(SimplePerson::getFirstName).containsExactly("Albert", "Alice");
+        assertThat(store.get(Query.advancedQuery().and(
+            simpleQuery -> simpleQuery.prefix("firstName", "Al"),
+            simpleQuery -> simpleQuery.greaterThan("age", 20)
+        ))).extracting(SimplePerson::getFirstName).containsExactly("Albert");
+    }
+
+    @Test
+    public void sortedIndexKeyTypeMismatch() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> age = store.index("age", IndexDefinition.withKeyMapping(SimplePerson::getAge).withSorting());
+        store.add(new SimplePerson("Alice", "Doe", 18));
+
+        assertThat(age.get("18")).isEmpty();
+        assertThat(store.get(Query.simpleQuery().where("age", 18L))).isEmpty();
+        assertThat(store.get(Query.simpleQuery().greaterThan("age", "a"))).isEmpty();
+        assertThat(store.get(Query.simpleQuery().between("age", 10, "a"))).isEmpty();
+        assertThat(store.get(Query.simpleQuery().prefix("age", "1"))).isEmpty();
+    }
+
+    @Test
+    public void incrementalReducers() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> oldest = store.index("oldest", SimplePerson::getLastName, new MaxReducer<>(SimplePerson::getAge, false));
+        final Index<SimplePerson> newest = store.index("newest", SimplePerson::getLastName, new LimitReducer<>(2, LimitReducer.Retain.NEWEST));
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 40);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 35);
+        final SimplePerson jack = new SimplePerson("Jack", "Doe", 20);
+
+        store.addAll(Arrays.asList(john, jane, jack));
+
+        assertThat(oldest.get("Doe")).containsExactly(john);
+        assertThat(newest.get("Doe")).containsExactly(jane, jack);
+
+        store.remove(john);
+
+        assertThat(oldest.get("Doe")).containsExactly(jane);
+        assertThat(newest.get("Doe")).containsExactly(jane, jack);
+
+        store.remove(jack);
+
+        assertThat(oldest.get("Doe")).containsExactly(jane);
+        assertThat(newest.get("Doe")).containsExactly(jane);
+    }
+
+    @Test
+    public void bulkLoadReducers() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> youngest = store.index("youngest", SimplePerson::getLastName, (key, elements) -> {
+            final int minAge = elements.stream().mapToInt(element -> element.get().getAge()).min().orElse(0);
+            elements.stream().filter(element -> element.get().getAge() != minAge).forEach(Element::remove);
+        });
+
+        final SimplePerson jack = new SimplePerson("Jack", "Doe", 20);
+        store.addAll(Arrays.asList(new SimplePerson("John", "Doe", 40), jack, new SimplePerson("Jane", "Doe", 35)));
+
+        assertThat(youngest.get("Doe")).containsExactly(jack);
+
+        final SimplePerson jill = new SimplePerson("Jill", "Doe", 10);
+        store.addAll(Arrays.asList(jill, jack));
+
+        assertThat(youngest.get("Doe")).containsExactly(jill);
+    }
+
+    @Test
+    public void leftRightStore() {
+        final Store<SimplePerson> store = new MemoryStore<SimplePerson>().leftRightStore();
+        final Index<SimplePerson> lastName = store.index("lastName", SimplePerson::getLastName);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        store.addAll(Arrays.asList(john, new SimplePerson("Jane", "Doe", 22)));
+
+        final Store<SimplePerson> snapshot = ((LeftRightStore<SimplePerson>) store).snapshot();
+        store.remove(john);
+
+        assertThat(lastName.get("Doe")).hasSize(1);
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"))).hasSize(1);
+        assertThat(snapshot.get(Query.simpleQuery().where("lastName", "Doe"))).hasSize(2);
+
+        store.removeIndex(lastName);
+
+        assertThat(store.getIndex("lastName")).isNull();
+        assertThat(lastName.get("Doe")).isEmpty();
+    }
+
+    @Test
+    public void concurrentStoreReadersAndWriters() throws Exception {
+        final Store<SimplePerson> store = new MemoryStore<SimplePerson>().concurrentStore();
+        store.index("lastName", SimplePerson::getLastName);
+
+        final List<SimplePerson> persons = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            persons.add(new SimplePerson("Name" + i, i % 2 == 0 ? "Doe" : "Smith", i));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final AtomicBoolean inconsistent = new AtomicBoolean();
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            final int writer = i;
+
+            futures.add(executor.submit(() -> {
+                for (int j = writer; j < persons.size(); j += 4) {
+                    store.add(persons.get(j));
+                }
+
+                for (int j = writer; j < persons.size(); j += 4) {
+                    if (j % 2 != 0) {
+                        store.remove(persons.get(j));
+                    }
+                }
+            }));
+
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 200; j++) {
+                    final List<SimplePerson> does = store.get(Query.simpleQuery().where("lastName", "Doe"));
+
+                    if (does.size() > 500 || new HashSet<>(does).size() != does.size() || !does.stream().allMatch(person -> person.getLastName().equals("Doe"))) {
+                        inconsistent.set(true);
+                    }
+                }
+            }));
+        }
+
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        assertThat(inconsistent.get()).isFalse();
+        assertThat(store).hasSize(500);
+        assertThat(store.count(Query.simpleQuery().where("lastName", "Doe"))).isEqualTo(500);
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Smith"))).isEmpty();
+    }
+
+    @Test
+    public void concurrentStoreIndexSeesLaterWrites() throws InterruptedException {
+        final Store<SimplePerson> store = new MemoryStore<SimplePerson>().concurrentStore();
+        store.index("lastName", SimplePerson::getLastName);
+        final Index<SimplePerson> lastName = store.getIndex("lastName");
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final Thread writer = new Thread(() -> store.add(john));
+        writer.start();
+        writer.join();
+
+        assertThat(lastName.get("Doe")).containsExactly(john);
+
+        store.remove(john);
+
+        assertThat(lastName.get("Doe")).isEmpty();
+    }
+
+    @Test
+    public void concurrentStoreCopyWhileReading() throws Exception {
+        final Store<SimplePerson> store = new MemoryStore<SimplePerson>().concurrentStore();
+        store.index("lastName", SimplePerson::getLastName);
+
+        final List<SimplePerson> does = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            does.add(new SimplePerson("Name" + i, "Doe", i));
+        }
+
+        store.addAll(does);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final AtomicBoolean copying = new AtomicBoolean(true);
+        final AtomicBoolean inconsistent = new AtomicBoolean();
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            futures.add(executor.submit(() -> {
+                while (copying.get()) {
+                    final List<SimplePerson> found = store.get(Query.simpleQuery().where("lastName", "Doe"));
+
+                    if (found.size() < 80 || new HashSet<>(found).size() != found.size()) {
+                        inconsistent.set(true);
+                    }
+                }
+            }));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            final Store<SimplePerson> copy = store.copy();
+            store.remove(does.get(i));
+
+            assertThat(copy.get(Query.simpleQuery().where("lastName", "Doe"))).hasSize(100 - i);
+        }
+
+        copying.set(false);
+
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+
+        executor.shutdown();
+
+        assertThat(inconsistent.get()).isFalse();
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"))).hasSize(80);
+    }
+
+    @Test
+    public void concurrentStoreRefusesDeferredReindex() {
+        final MemoryStore<SimplePerson> store = new MemoryStore<>();
+        store.setDeferReindex(true);
+
+        assertThatThrownBy(() -> new ConcurrentStore<>(store)).isInstanceOf(IllegalArgumentException.class);
+
+        store.setDeferReindex(false);
+
+        assertThat(new ConcurrentStore<>(store)).isEmpty();
+    }
+
+    @Test
+    public void primitiveIndex() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> age = store.index("age", IntIndexDefinition.of(SimplePerson::getAge));
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 40);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 35);
+        store.addAll(Arrays.asList(john, jane, new SimplePerson("Jack", "Doe", 20)));
+
+        assertThat(age.getInt(40)).containsExactly(john);
+        assertThat(age.getLong(40L)).containsExactly(john);
+        assertThat(age.get(35)).containsExactly(jane);
+        assertThat(store.get(Query.simpleQuery().between("age", 30, 50))).containsExactlyInAnyOrder(john, jane);
+
+        store.remove(john);
+
+        assertThat(age.findFirstInt(40)).isEmpty();
+        assertThat(store.copy().getIndex("age").getInt(35)).containsExactly(jane);
+    }
+
+    @Test
+    public void narrowPrimitiveKeys() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> initial = store.index("initial", person -> person.getFirstName().charAt(0));
+        final Index<SimplePerson> age = store.index("age", person -> (short) person.getAge());
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 40);
+        store.add(john);
+
+        assertThat(initial.get('J')).containsExactly(john);
+        assertThat(age.get((short) 40)).containsExactly(john);
+        assertThat(age.get(40)).isEmpty();
+    }
+
+    @Test
+    public void parallelIndexing() {
+        final Store<SimplePerson> store = new MemoryStore<>(new IndexExecutor(ForkJoinPool.commonPool(), 4, 1));
+        store.index("lastName", SimplePerson::getLastName);
+
+        for (int i = 0; i < 100; i++) {
+            store.add(new SimplePerson("Name" + i, i % 2 == 0 ? "Doe" : "Smith", i));
+        }
+
+        final Index<SimplePerson> age = store.index("age", IntIndexDefinition.of(SimplePerson::getAge));
+
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"))).hasSize(50);
+        assertThat(age.getInt(42)).hasSize(1);
+        assertThatThrownBy(() -> store.index("failing", person -> {
+            throw new IllegalStateException(person.getFirstName());
+        })).isInstanceOf(IndexException.class).satisfies(e -> assertThat(e.getSuppressed()).hasSize(100));
+    }
+
+    @Test
+    public void concurrentReferences() {
+        final Store<SimplePerson> store = new ConcurrentStore<>(new MemoryStore<>(new ConcurrentReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>())));
+        store.index("lastName", SimplePerson::getLastName);
+
+        final List<SimplePerson> persons = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            persons.add(new SimplePerson("Name" + i, i % 2 == 0 ? "Doe" : "Smith", i));
+        }
+
+        persons.parallelStream().forEach(store::add);
+        persons.parallelStream().forEach(store::add);
+
+        assertThat(store).hasSize(100);
+        assertThat(persons).allMatch(store::contains);
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"))).hasSize(50);
+    }
+
+    @Test
+    public void concurrentReferencesKeepInsertionOrder() {
+        final Store<SimplePerson> store = new MemoryStore<>(new ConcurrentReferenceManager<>(new DefaultIdentityProvider(), new MemoryReferenceFactory<>()));
+        final Index<SimplePerson> lastName = store.index("lastName", SimplePerson::getLastName);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        store.addAll(Arrays.asList(john, jane));
+        store.remove(john);
+
+        final SimplePerson jack = new SimplePerson("Jack", "Doe", 23);
+        store.add(jack);
+
+        assertThat(store).containsExactly(jane, jack);
+        assertThat(lastName.get("Doe")).containsExactly(jane, jack);
+
+        store.clear();
+        store.add(john);
+
+        assertThat(lastName.get("Doe")).containsExactly(john);
+    }
+
+    @Test
+    public void reindexChangedKeys() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> drinks = store.index("drinks", SimplePerson::getDrinks);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21, Sets.newLinkedHashSet("Coffee", "Tea"));
+        store.add(john);
+
+        john.getDrinks().remove("Tea");
+        john.getDrinks().add("Water");
+        store.reindex(john);
+
+        assertThat(drinks.get("Coffee")).containsExactly(john);
+        assertThat(drinks.get("Tea")).isEmpty();
+        assertThat(drinks.get("Water")).containsExactly(john);
+
+        john.getDrinks().clear();
+        store.reindex(john);
+
+        assertThat(drinks.get("Coffee")).isEmpty();
+        assertThat(drinks.get("Water")).isEmpty();
+    }
+
+    @Test
+    public void deferredReindex() {
+        final MemoryStore<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> drinks = store.index("drinks", SimplePerson::getDrinks);
+        store.setDeferReindex(true);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21, Sets.newLinkedHashSet("Coffee"));
+        store.add(john);
+
+        john.getDrinks().add("Tea");
+        store.reindex(john);
+
+        assertThat(drinks.get("Tea")).containsExactly(john);
+        assertThat(store.get(Query.simpleQuery().where("drinks", "Coffee"))).containsExactly(john);
+
+        john.getDrinks().remove("Coffee");
+        store.reindex(john);
+        store.flushReindex();
+
+        assertThat(drinks.get("Coffee")).isEmpty();
+        assertThatThrownBy(store::concurrentStore).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(store::leftRightStore).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void allocationFreeReads() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> lastName = store.index("lastName", SimplePerson::getLastName);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        store.addAll(Arrays.asList(john, jane, new SimplePerson("Jack", "Smith", 23)));
+
+        final List<SimplePerson> results = new ArrayList<>();
+
+        assertThat(lastName.get("Doe", results)).isEqualTo(2);
+        assertThat(results).containsExactly(john, jane);
+        assertThat(lastName.count("Doe")).isEqualTo(2);
+        assertThat(lastName.contains("Smith")).isTrue();
+        assertThat(lastName.contains("Paul")).isFalse();
+        assertThat(lastName.getFirst("Doe")).isEqualTo(john);
+
+        results.clear();
+        lastName.forEach("Doe", results::add);
+
+        assertThat(results).containsExactly(john, jane);
+
+        results.clear();
+
+        assertThat(store.get(Query.simpleQuery().where("lastName", "Doe"), 1, results)).isEqualTo(1);
+        assertThat(results).containsExactly(john);
+    }
+
+    @Test
+    public void streamQuery() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("lastName", SimplePerson::getLastName);
+        store.index("age", SimplePerson::getAge);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        final SimplePerson jack = new SimplePerson("Jack", "Smith", 21);
+        store.addAll(Arrays.asList(john, jane, jack));
+
+        // john matches both sections but is streamed once
+        final Query query = Query.advancedQuery().or(
+            simpleQuery -> simpleQuery.where("lastName", "Doe"),
+            simpleQuery -> simpleQuery.where("age", 21)
+        );
+
+        assertThat(store.stream(query).collect(Collectors.toList())).containsExactly(john, jane, jack);
+        assertThat(store.stream(query, 2).collect(Collectors.toList())).containsExactly(john, jane);
+        assertThat(store.stream(query).filter(person -> person.getAge() == 21).findFirst()).contains(john);
+    }
+
+    @Test
+    public void countQuery() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> lastName = store.index("lastName", SimplePerson::getLastName);
+        store.index("age", SimplePerson::getAge);
+
+        store.addAll(Arrays.asList(
+            new SimplePerson("John", "Doe", 21),
+            new SimplePerson("Jane", "Doe", 22),
+            new SimplePerson("Jack", "Smith", 21)
+        ));
+
+        final Query query = Query.advancedQuery().or(
+            simpleQuery -> simpleQuery.where("lastName", "Doe"),
+            simpleQuery -> simpleQuery.where("age", 21)
+        );
+
+        assertThat(store.count(query)).isEqualTo(3);
+        assertThat(store.count(Query.simpleQuery().where("lastName", "Doe"))).isEqualTo(2);
+        assertThat(store.exists(Query.simpleQuery().where("age", 22))).isTrue();
+        assertThat(store.exists(Query.simpleQuery().where("age", 25))).isFalse();
+        assertThat(lastName.keys()).containsExactlyInAnyOrder("Doe", "Smith");
+    }
+
+    @Test
+    public void bitmapQueriesAfterRemoval() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("lastName", SimplePerson::getLastName);
+        store.index("age", SimplePerson::getAge);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        store.addAll(Arrays.asList(john, new SimplePerson("Jane", "Doe", 22)));
+
+        final Store<SimplePerson> copy = store.copy();
+        store.remove(john);
+
+        final SimplePerson jack = new SimplePerson("Jack", "Smith", 21);
+        store.add(jack);
+
+        assertThat(store.get(Query.advancedQuery().and(
+            simpleQuery -> simpleQuery.where("lastName", "Doe"),
+            simpleQuery -> simpleQuery.where("age", 21)
+        ))).isEmpty();
+        assertThat(store.get(Query.advancedQuery().or(
+            simpleQuery -> simpleQuery.where("lastName", "Smith"),
+            simpleQuery -> simpleQuery.where("age", 21)
+        ))).containsExactly(jack);
+        assertThat(copy.get(Query.simpleQuery().where("age", 21))).containsExactly(john);
+    }
+
+    @Test
+    public void insertionOrderAfterRemoval() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        final Index<SimplePerson> lastName = store.index("lastName", SimplePerson::getLastName);
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        store.addAll(Arrays.asList(john, jane));
+        store.remove(john);
+
+        final SimplePerson jack = new SimplePerson("Jack", "Doe", 23);
+        store.add(jack);
+
+        assertThat(store).containsExactly(jane, jack);
+        assertThat(lastName.get("Doe")).containsExactly(jane, jack);
+        assertThat(store.getFirst(Query.simpleQuery().where("lastName", "Doe"))).isEqualTo(jane);
+    }
+
+    @Test
+    public void copySharesUntilModified() {
+        final Store<SimplePerson> store = new MemoryStore<>();
+        store.index("lastName", IndexDefinition.withKeyMapping(SimplePerson::getLastName).withSubstringIndex());
+        store.index("age", IntIndexDefinition.of(SimplePerson::getAge));
+
+        final SimplePerson john = new SimplePerson("John", "Doe", 21);
+        final SimplePerson jane = new SimplePerson("Jane", "Doe", 22);
+        store.addAll(Arrays.asList(john, jane));
+
+        final Store<SimplePerson> copy = store.copy();
+        final SimplePerson jack = new SimplePerson("Jack", "Smith", 21);
+        final SimplePerson jill = new SimplePerson("Jill", "Doe", 22);
+        store.remove(john);
+        store.add(jack);
+        copy.add(jill);
+
+        assertThat(store.get(Query.simpleQuery().where("age", 21))).containsExactly(jack);
+        assertThat(store.get(Query.simpleQuery().contains("lastName", "Do"))).containsExactly(jane);
+        assertThat(copy.get(Query.simpleQuery().where("age", 21))).containsExactly(john);
+        assertThat(copy.get(Query.simpleQuery().where("age", 22))).containsExactlyInAnyOrder(jane, jill);
+        assertThat(copy.get(Query.simpleQuery().contains("lastName", "Smi"))).isEmpty();
+    }
+
     @Test
     public void showLogic() {
         final Section section = Query.simpleQuery()
@@ -0,0 +1,69 @@
+package net.tridentgames.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import net.tridentgames.membase.type.expiring.TimerWheel;
+import org.junit.Test;
+
+public class TimerWheelTests {
+    @Test
+    public void scheduleRescheduleRemove() {
+        final TimerWheel<String> wheel = new TimerWheel<>(0);
+        wheel.schedule("a", 100);
+        wheel.schedule("b", 200);
+        wheel.schedule("c", 300);
+
+        wheel.schedule("b", 1000);
+        assertThat(wheel.remove("c")).isTrue();
+        assertThat(wheel.remove("c")).isFalse();
+        assertThat(wheel.size()).isEqualTo(2);
+
+        assertThat(wheel.advance(400)).containsExactly("a");
+        assertThat(wheel.contains("b")).isTrue();
+
+        assertThat(wheel.advance(999)).isEmpty();
+        assertThat(wheel.advance(1064)).containsExactly("b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void pastDeadlinesAreDueNextAdvance() {
+        final TimerWheel<String> wheel = new TimerWheel<>(10_000);
+        wheel.schedule("a", 500);
+
+        assertThat(wheel.advance(10_000)).isEmpty(); // time did not move
+        assertThat(wheel.advance(10_064)).containsExactly("a");
+    }
+
+    @Test
+    public void largeJumpsAcrossLevels() {
+        final TimerWheel<String> wheel = new TimerWheel<>(0);
+        wheel.schedule("level0", 100);
+        wheel.schedule("level1", 10_000);
+        wheel.schedule("level2", 1_000_000);
+        wheel.schedule("level3", 100_000_000);
+        wheel.schedule("level4", 5_000_000_000L);
+
+        assertThat(wheel.advance(1_000_500)).containsExactlyInAnyOrder("level0", "level1", "level2");
+        assertThat(wheel.size()).isEqualTo(2);
+
+        assertThat(wheel.advance(10_000_000_000L)).containsExactlyInAnyOrder("level3", "level4");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    public void cascadesAtLevelBoundaries() {
+        final TimerWheel<String> wheel = new TimerWheel<>(0);
+        wheel.schedule("a", 4096 + 100); // level 1 spans 4096ms
+        wheel.schedule("b", 262_144 + 1000); // level 2 spans 262144ms
+
+        assertThat(wheel.advance(4095)).isEmpty();
+        assertThat(wheel.advance(4100)).isEmpty(); // cascades into level 0
+        assertThat(wheel.contains("a")).isTrue();
+        assertThat(wheel.advance(4260)).containsExactly("a");
+
+        assertThat(wheel.advance(262_144 + 500)).isEmpty(); // cascades past level 1 into level 0
+        assertThat(wheel.contains("b")).isTrue();
+        assertThat(wheel.advance(262_144 + 1064)).containsExactly("b");
+    }
+}
@@ -0,0 +1,80 @@
+package net.tridentgames.test.benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import net.tridentgames.membase.Store;
+import net.tridentgames.membase.query.Query;
+import net.tridentgames.membase.type.memory.MemoryStore;
+import net.tridentgames.test.modal.Person;
+import net.tridentgames.util.JsonTestUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of the synchronized and the concurrent store when queried from all available cores.
+ */
+public class ConcurrentStoreBenchmarkTest {
+    private static final List<Person> TEST_DATA = Arrays.asList(JsonTestUtils.loadResource("/data.json", Person[].class));
+    private static final Store<Person> SYNCHRONIZED_STORE = createStore().synchronizedStore();
+    private static final Store<Person> CONCURRENT_STORE = createStore().concurrentStore();
+
+    @Rule
+    public TestRule benchmarkRun = new BenchmarkRule();
+
+    @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 50, concurrency = BenchmarkOptions.CONCURRENCY_AVAILABLE_CORES)
+    @Test
+    public void synchronizedStoreReadBenchmark() {
+        this.read(SYNCHRONIZED_STORE);
+    }
+
+    @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 50, concurrency = BenchmarkOptions.CONCURRENCY_AVAILABLE_CORES)
+    @Test
+    public void concurrentStoreReadBenchmark() {
+        this.read(CONCURRENT_STORE);
+    }
+
+    @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 50, concurrency = BenchmarkOptions.CONCURRENCY_AVAILABLE_CORES)
+    @Test
+    public void synchronizedStoreMixedBenchmark() {
+        this.write(SYNCHRONIZED_STORE);
+        this.read(SYNCHRONIZED_STORE);
+    }
+
+    @BenchmarkOptions(benchmarkRounds = 2000, warmupRounds = 50, concurrency = BenchmarkOptions.CONCURRENCY_AVAILABLE_CORES)
+    @Test
+    public void concurrentStoreMixedBenchmark() {
+        this.write(CONCURRENT_STORE);
+        this.read(CONCURRENT_STORE);
+    }
+
+    private void read(final Store<Person> store) {
+        for (final Person person : TEST_DATA) {
+            final List<Person> results = store.get(Query.advancedQuery().and(
+                query -> query.where("firstName", person.getFirstName()),
+                query -> query.where("gender", person.getGender())
+            ));
+
+            assertThat(results).contains(person);
+        }
+    }
+
+    private void write(final Store<Person> store) {
+        final Person person = TEST_DATA.get(ThreadLocalRandom.current().nextInt(TEST_DATA.size()));
+        store.reindex(person);
+    }
+
+    private static Store<Person> createStore() {
+        final Store<Person> store = new MemoryStore<>(TEST_DATA);
+        store.index("firstName", Person::getFirstName);
+        store.index("gender", Person::getGender);
+        return store;
+    }
+}